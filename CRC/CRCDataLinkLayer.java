@@ -1,6 +1,7 @@
 // =============================================================================
 // IMPORTS
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
@@ -29,6 +30,7 @@ public class CRCDataLinkLayer extends DataLinkLayer {
 		while(i < data.length) {
 			// Begin with the start tag.
 			framingData.add(startTag);
+			framesSent.increment();
 			int counter = 0;
 			Queue<Byte> toAdd = new LinkedList<Byte>();
 			while(i < data.length && counter < 8){
@@ -40,6 +42,7 @@ public class CRCDataLinkLayer extends DataLinkLayer {
 				(currentByte == escapeTag)) {
 
 				toAdd.add(escapeTag);
+				escapesAdded.increment();
 
 				}
 
@@ -49,14 +52,16 @@ public class CRCDataLinkLayer extends DataLinkLayer {
 				counter++;
 			}
 			framingData.addAll(toAdd);
-			//Pad 8 or less data bytes with one byte that is zero
-			byte b = 0;
-			toAdd.add(b);
-			//Generate remainder
-			byte crc = crc8(toAdd);
-			//Add remainder to framed data
+			//Generate the remainder of the data padded with one zero byte,
+			//and add it, escaped if need be, to the framed data
+			byte crc = crc8(data, i - counter, counter);
+			if ((crc == startTag) ||
+			(crc == stopTag) ||
+			(crc == escapeTag)) {
+				framingData.add(escapeTag);
+				escapesAdded.increment();
+			}
 			framingData.add(crc);
-			toAdd = new LinkedList<Byte>();
 			// End with a stop tag.
 			framingData.add(stopTag);
 		}
@@ -78,166 +83,175 @@ public class CRCDataLinkLayer extends DataLinkLayer {
     
     // =========================================================================
     /**
-     * Determine whether the received, buffered data constitutes a complete
-     * frame.  If so, then remove the framing metadata and return the original
-     * data.  Note that any data preceding an escaped start tag is assumed to be
-     * part of a damaged frame, and is thus discarded.
+     * Consume the received, buffered bytes, extracting a frame as they
+     * arrive.  Unescaped bytes are added to the current frame and to its
+     * running remainder as each arrives, so that once the stop tag is found,
+     * the frame is checked by testing that remainder against zero.  Note that
+     * any data preceding an unescaped start tag is assumed to be part of a
+     * damaged frame, and is thus discarded.
      *
-     * @return If the buffer contains a complete frame, the extracted, original
-     * data; <code>null</code> otherwise.
+     * @return If the buffer contained the end of a valid frame, the extracted,
+     * original data; <code>null</code> otherwise.
      */
     protected byte[] processFrame () {
 
-	// Search for a start tag.  Discard anything prior to it.
-	boolean        startTagFound = false;
-	Iterator<Byte>             i = byteBuffer.iterator();
-	while (!startTagFound && i.hasNext()) {
-	    byte current = i.next();
-	    if (current != startTag) {
-		i.remove();
-	    } else {
-		startTagFound = true;
-	    }
-	}
-
-	// If there is no start tag, then there is no frame.
-	if (!startTagFound) {
-	    return null;
-	}
-	
-	// Try to extract data while waiting for an unescaped stop tag.
-	Queue<Byte> extractedBytes = new LinkedList<Byte>();
-	//count the number of bytes being extracted
-	int numBytes = 0;
-	boolean       stopTagFound = false;
-	while (!stopTagFound && i.hasNext()) {
-
-	    // Grab the next byte.  If it is...
-	    //   (a) An escape tag: Skip over it and grab what follows as
-	    //                      literal data.
-	    //   (b) A stop tag:    Remove all processed bytes from the buffer and
-	    //                      end extraction.
-	    //   (c) A start tag:   All that precedes is damaged, so remove it
-	    //                      from the buffer and restart extraction.
-	    //   (d) Otherwise:     Take it as literal data.
-	    byte current = i.next();
-	    if (current == escapeTag) {
-		if (i.hasNext()) {
-		    current = i.next();
-			numBytes++;
-		    extractedBytes.add(current);
-		} else {
-		    // An escape was the last byte available, so this is not a
-		    // complete frame.
-		    return null;
+	while (!byteBuffer.isEmpty()) {
+
+	    // Grab the next byte.  Outside of a frame, skip anything but a start
+	    // tag.  Within one, if the byte is...
+	    //   (a) Escaped:       Take it as literal data.
+	    //   (b) An escape tag: Take what follows as literal data.
+	    //   (c) A stop tag:    Check and deliver the frame.
+	    //   (d) A start tag:   All that precedes is damaged, so restart
+	    //                      extraction.
+	    //   (e) Otherwise:     Take it as literal data.
+	    byte current = byteBuffer.remove();
+	    if (!inFrame) {
+		if (current == startTag) {
+		    startFrame();
 		}
+	    } else if (escaped) {
+		escaped = false;
+		addToFrame(current);
+	    } else if (current == escapeTag) {
+		escaped = true;
 	    } else if (current == stopTag) {
-		cleanBufferUpTo(i);
-		stopTagFound = true;
+		inFrame = false;
+		byte[] extractedData = finishFrame();
+		if (extractedData != null) {
+		    return extractedData;
+		}
 	    } else if (current == startTag) {
-		cleanBufferUpTo(i);
-		extractedBytes = new LinkedList<Byte>();
+		resyncs.increment();
+		startFrame();
 	    } else {
-			numBytes++;
-			extractedBytes.add(current);
+		addToFrame(current);
 	    }
 
 	}
 
-	// If there is no stop tag, then the frame is incomplete.
-	if (!stopTagFound) {
-	    return null;
+	return null;
+
+    } // processFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Begin extracting a new frame.
+     */
+    private void startFrame () {
+
+	inFrame    = true;
+	escaped    = false;
+	frameCount = 0;
+	remainder  = 0;
+
+    } // startFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Add a byte of extracted data to the current frame, dividing it into the
+     * running remainder.
+     *
+     * @param b The extracted byte.
+     */
+    private void addToFrame (byte b) {
+
+	if (frameCount < frameBytes.length) {
+	    frameBytes[frameCount] = b;
 	}
+	frameCount += 1;
+	remainder   = CRC_TABLE[remainder] ^ (b & 0xff);
+
+    } // addToFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Check a completely extracted frame, whose last byte is its CRC.
+     *
+     * @return the frame's data if it is valid; <code>null</code> otherwise.
+     */
+    private byte[] finishFrame () {
+
 	//If we find more than 9 bytes in the frame there was an error
-	if(numBytes > 9){
-		printError("There were more than 8 bytes found in the frame");
-		printError(extractedBytes);
-		return null;
+	if (frameCount > frameBytes.length) {
+	    dropFrame(ErrorSink.Reason.FRAME_TOO_LONG, frameCount);
+	    return null;
+	}
+	//There must be at least one data byte before the CRC
+	if (frameCount < 2) {
+	    dropFrame(ErrorSink.Reason.FRAME_TOO_SHORT, frameCount);
+	    return null;
 	}
-	//Generate remainder from extracted bytes
-	byte crcByteGenerated = crc8(new LinkedList(extractedBytes));
-	//Remove the last byte to transmit message successfully 
-	Queue<Byte> myList = new LinkedList<Byte>();
-	for(int counter = 0; counter < numBytes-1; counter++){
-			byte b = extractedBytes.remove();
-			myList.add(b);
-		}
 	//If remainder is not zero we have an error
-	if(crcByteGenerated != 0){
-		printError("Remainder does not equal zero");
-		printError(myList);
-		return null;
+	if (remainder != 0) {
+	    dropFrame(ErrorSink.Reason.CHECK_FAILED, frameCount);
+	    return null;
 	}
-	
-	numBytes = 0;
-	
-	// Convert myList to the desired byte array.
+
+	// Deliver everything but the CRC.
 	if (debug) {
-	    System.out.println("DumbDataLinkLayer.processFrame(): Got whole frame!");
+	    System.out.println("CRCDataLinkLayer.processFrame(): Got whole frame!");
 	}
-	byte[] extractedData = new byte[myList.size()];
-	int                j = 0;
-	i = myList.iterator();
-	while (i.hasNext()) {
-	    extractedData[j] = i.next();
-	    if (debug) {
-		System.out.printf("DumbDataLinkLayer.processFrame():\tbyte[%d] = %c\n",
-				  j,
-				  extractedData[j]);
+	return Arrays.copyOf(frameBytes, frameCount - 1);
+
+    } // finishFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Build the table of remainders used to divide a byte at a time: entry
+     * <i>r</i> is the remainder of <i>r</i> shifted left by eight bits.
+     */
+    private static int[] buildCRCTable () {
+
+	int[] table = new int[256];
+	for (int r = 0; r < table.length; r += 1) {
+	    int crc = r;
+	    for (int j = 0; j < 8; j += 1) {
+		crc <<= 1;
+		if ((crc >> 8) == 1) {
+		    crc ^= 0x1D5;
+		}
 	    }
-	    j += 1;
+	    table[r] = crc;
 	}
+	return table;
 
-	return extractedData;
-
-    } // processFrame ()
+    } // buildCRCTable ()
     // ===============================================================
 
 
 
     // ===============================================================
-    private void cleanBufferUpTo (Iterator<Byte> end) {
+    /**
+     * Calculate the CRC of a run of data bytes, padded with one zero byte, so
+     * that dividing the data followed by this CRC leaves no remainder.
+     *
+     * @param data   The array holding the data.
+     * @param offset The index of the first byte of the run.
+     * @param length The number of bytes in the run.
+     * @return the CRC.
+     */
+    public static byte crc8 (byte[] data, int offset, int length) {
 
-	Iterator<Byte> i = byteBuffer.iterator();
-	while (i.hasNext() && i != end) {
-	    i.next();
-	    i.remove();
+	int crc = 0;
+	for (int i = offset; i < offset + length; i += 1) {
+	    crc = CRC_TABLE[crc] ^ (data[i] & 0xff);
 	}
+	return (byte)CRC_TABLE[crc];
 
-    }
-	//Caclulate CRC checksum for bytes in queue
-	public static byte crc8(Queue<Byte> q){
-		//Initally crc is 0 
-		int crc = (int)0x00;
-		//Loop through the bytes
-		while(q.peek() != null){
-			//Grab current byte
-			int cur = q.remove();
-			//Loop through all 8 bits of byte
-			for(int j = 0; j < 8; j++){
-				int temp = cur & 0b10000000;
-				temp = temp >> 7;
-				crc = (crc << 1) | temp;
-				cur = cur<<1;
-				if((crc >> 8) == 1){
-					crc = crc ^ 0x1D5;
-				}
-			}
-		}
-		return (byte)(crc);
-	}
-	private void printError(String a){
-		System.out.println(a);
-	}
-	private void printError(Queue<Byte> myList){
-		System.out.println("Error detected");
-		while(myList.peek() != null){
-			byte b = myList.remove();
-			char c = (char) (b & 0xFF);
-			System.out.print(c + " ");
-		}
-		System.out.println();
-	}
+    } // crc8 ()
     // ===============================================================
 
 
@@ -253,6 +267,18 @@ public class CRCDataLinkLayer extends DataLinkLayer {
     private final byte startTag  = (byte)'{';
     private final byte stopTag   = (byte)'}';
     private final byte escapeTag = (byte)'\\';
+
+    // The state of the frame being extracted: whether a start tag has been
+    // seen, whether the last byte was an escape, the data bytes (including
+    // the CRC) and their count, and the remainder of those bytes so far.
+    private boolean inFrame    = false;
+    private boolean escaped    = false;
+    private byte[]  frameBytes = new byte[9];
+    private int     frameCount = 0;
+    private int     remainder  = 0;
+
+    // The remainders of each byte value shifted left by eight bits.
+    private static final int[] CRC_TABLE = buildCRCTable();
     // ===============================================================
 
 
@@ -34,6 +34,7 @@ public class DumbDataLinkLayer extends DataLinkLayer {
 	
 	// Begin with the start tag.
 	framingData.add(startTag);
+	framesSent.increment();
 
 	// Add each byte of original data.
 	for (int i = 0; i < data.length; i += 1) {
@@ -46,6 +47,7 @@ public class DumbDataLinkLayer extends DataLinkLayer {
 		(currentByte == escapeTag)) {
 
 		framingData.add(escapeTag);
+		escapesAdded.increment();
 
 	    }
 
@@ -130,6 +132,7 @@ public class DumbDataLinkLayer extends DataLinkLayer {
 	    } else if (current == startTag) {
 		cleanBufferUpTo(i);
 		extractedBytes = new LinkedList<Byte>();
+		resyncs.increment();
 	    } else {
 		extractedBytes.add(current);
 	    }
@@ -50,6 +50,7 @@ public class PerfectMedium extends Medium {
 	    
 	    PhysicalLayer receiver = clientIterator.next();
 	    if (receiver != sender) {
+		bitsCarried.increment();
 		receiver.receive(bit);
 	    }
 
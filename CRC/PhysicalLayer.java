@@ -1,3 +1,11 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
 // =============================================================================
 /**
  * Transmits bits across a medium.
@@ -82,6 +90,7 @@ public class PhysicalLayer {
      */
     public void send (boolean bit) {
 
+	bitsSent.increment();
 	medium.transmit(this, bit);
 
     } // send ()
@@ -98,6 +107,7 @@ public class PhysicalLayer {
      */
     public void receive (boolean bit) {
 
+	bitsReceived.increment();
 	client.receive(bit);
 
     }
@@ -113,6 +123,12 @@ public class PhysicalLayer {
 
     /** The data link layer above this physical layer. */
     private DataLinkLayer client;
+
+    /** The number of bits sent and received by all physical layers. */
+    private static final LongAdder bitsSent
+	= Statistics.counter("physical.bitsSent");
+    private static final LongAdder bitsReceived
+	= Statistics.counter("physical.bitsReceived");
     // ===============================================================
 
 
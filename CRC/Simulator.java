@@ -118,9 +118,11 @@ public class Simulator {
 
 	sender.send(data);
 	byte[] received = receiver.retrieve();
+	ErrorSink.flush();
 	System.out.println("Transmission received:  " + new String(received));
 	System.out.println("Transmission succeeded: " +
 			   Arrays.equals(data, received));
+	Statistics.print();
 
     } // simulate()
     // =========================================================================
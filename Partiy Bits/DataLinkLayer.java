@@ -5,6 +5,7 @@ import java.util.LinkedList;
 import java.util.Queue;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -92,6 +93,9 @@ public abstract class DataLinkLayer {
 	// Create incoming buffer space.
 	dataLinkLayer.bitBuffer  = new LinkedList<Boolean>();
 	dataLinkLayer.byteBuffer = new LinkedList<Byte>();
+
+	// Number the link end for reporting.
+	dataLinkLayer.linkId = nextLinkId++;
 	return dataLinkLayer;
 
     } // create ()
@@ -221,6 +225,7 @@ public abstract class DataLinkLayer {
 		if (debug) {
 		    System.out.println("DataLinkLayer.receive(): Got a whole frame!");
 		}
+		framesReceived.increment();
 		client.receive(originalData);
 	    }
 
@@ -245,6 +250,24 @@ public abstract class DataLinkLayer {
 
 
 
+    // =========================================================================
+    /**
+     * Discard a damaged frame, counting and reporting it.  Expected to be
+     * called by a subclass in performing a <code>processFrame()</code>.
+     *
+     * @param reason    Why the frame is being dropped.
+     * @param byteCount The number of bytes extracted from the frame.
+     */
+    protected void dropFrame (ErrorSink.Reason reason, int byteCount) {
+
+	framesDropped.increment();
+	ErrorSink.report(reason, linkId, byteCount);
+
+    } // dropFrame ()
+    // =========================================================================
+
+
+
     // =========================================================================
     // DATA MEMBERS
 
@@ -260,11 +283,29 @@ public abstract class DataLinkLayer {
     /** The buffer of bytes recently received, building up the current frame. */
     protected Queue<Byte>    byteBuffer;
 
+    /** The number identifying this layer in error reports. */
+    protected int            linkId;
+
+    /** The number for the next data link layer created. */
+    private static int       nextLinkId    = 0;
+
     /** The number of bits in a byte. */
     public static final int     BITS_PER_BYTE = 8;
 
     /** Whether to emit debugging information. */
     public static final boolean debug         = false;
+
+    /** Counts of frame events across all data link layers. */
+    protected static final LongAdder framesSent
+	= Statistics.counter("datalink.framesSent");
+    protected static final LongAdder framesReceived
+	= Statistics.counter("datalink.framesReceived");
+    protected static final LongAdder framesDropped
+	= Statistics.counter("datalink.framesDropped");
+    protected static final LongAdder resyncs
+	= Statistics.counter("datalink.resyncs");
+    protected static final LongAdder escapesAdded
+	= Statistics.counter("datalink.escapesAdded");
     // =========================================================================
 
 
@@ -0,0 +1,325 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Collects events describing damaged frames that a data link layer dropped,
+ * and reports them away from the receive path.
+ *
+ * Reporting an event only claims a slot in a bounded, lock-free ring buffer
+ * and fills it in; it never waits.  If the ring is full, the event is counted
+ * and discarded.  A background thread drains the ring, printing at most
+ * <code>RATE_LIMIT</code> events per second (counting the rest as
+ * suppressed), and, if <code>-Derrors.log=</code><i>path</i> is given,
+ * appending every event to that file as a fixed-size binary record:
+ * timestamp (long, ns), reason (int), link (int), and byte count (int).
+ *
+ * @file   ErrorSink.java
+ * @date   October 2026
+ */
+public class ErrorSink {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /** Why a frame was dropped. */
+    public enum Reason {
+
+	/** More bytes arrived between the tags than a frame may hold. */
+	FRAME_TOO_LONG  ("frame too long"),
+
+	/** Too few bytes arrived between the tags to hold the check value. */
+	FRAME_TOO_SHORT ("frame too short"),
+
+	/** The check value did not match the data. */
+	CHECK_FAILED    ("check failed");
+
+	Reason (String description) {
+	    this.description = description;
+	}
+
+	/** A human-readable description of the reason. */
+	public final String description;
+
+    } // enum Reason
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that a frame was dropped.  Never blocks.
+     *
+     * @param reason    Why the frame was dropped.
+     * @param link      The identifier of the receiving data link layer.
+     * @param byteCount The number of bytes extracted from the dropped frame.
+     */
+    public static void report (Reason reason, int link, int byteCount) {
+
+	// Claim the next slot, unless the consumer has not yet freed it.
+	long position;
+	int  slot;
+	while (true) {
+	    position = tail.get();
+	    slot     = (int)(position & MASK);
+	    long difference = sequences.get(slot) - position;
+	    if (difference < 0) {
+		overflowed.increment();
+		return;
+	    }
+	    if (difference == 0 && tail.compareAndSet(position, position + 1)) {
+		break;
+	    }
+	}
+
+	// Fill it in, then publish it to the consumer.
+	times[slot]      = System.nanoTime();
+	reasons[slot]    = reason.ordinal();
+	links[slot]      = link;
+	byteCounts[slot] = byteCount;
+	sequences.set(slot, position + 1);
+
+    } // report ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Wait until every event reported so far has been handled, then print how
+     * many events were suppressed or lost.
+     */
+    public static void flush () {
+
+	long target = tail.get();
+	while (consumed.get() < target) {
+	    LockSupport.parkNanos(IDLE_WAIT);
+	}
+
+	long suppressedCount = suppressed.sumThenReset();
+	long overflowCount   = overflowed.sumThenReset();
+	if (suppressedCount > 0) {
+	    System.out.printf("%d further dropped frames not shown\n",
+			      suppressedCount);
+	}
+	if (overflowCount > 0) {
+	    System.out.printf("%d dropped frames not recorded (event buffer full)\n",
+			      overflowCount);
+	}
+
+    } // flush ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The consumer: drain published events in order, idling briefly whenever
+     * the ring is empty.
+     */
+    private static void consume () {
+
+	long position = 0;
+	while (true) {
+
+	    int slot = (int)(position & MASK);
+	    if (sequences.get(slot) != position + 1) {
+		LockSupport.parkNanos(IDLE_WAIT);
+		continue;
+	    }
+
+	    // Copy the event out, then free the slot for reuse.
+	    long   time      = times[slot];
+	    Reason reason    = REASONS[reasons[slot]];
+	    int    link      = links[slot];
+	    int    byteCount = byteCounts[slot];
+	    sequences.set(slot, position + CAPACITY);
+	    position += 1;
+
+	    print(time, reason, link, byteCount);
+	    log(time, reason, link, byteCount);
+
+	    // Once caught up, push the log out before admitting it.
+	    if (sequences.get((int)(position & MASK)) != position + 1) {
+		flushLog();
+	    }
+	    consumed.set(position);
+
+	}
+
+    } // consume ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print an event, unless this second's allowance has been used up.
+     */
+    private static void print (long time, Reason reason, int link, int byteCount) {
+
+	if (time - windowStart >= NANOS_PER_SECOND) {
+	    windowStart   = time;
+	    windowPrinted = 0;
+	}
+	if (windowPrinted >= RATE_LIMIT) {
+	    suppressed.increment();
+	    return;
+	}
+	windowPrinted += 1;
+
+	System.out.printf("Dropped frame on link %d: %s (%d bytes)\n",
+			  link,
+			  reason.description,
+			  byteCount);
+
+    } // print ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append an event to the binary log, if there is one.
+     */
+    private static void log (long time, Reason reason, int link, int byteCount) {
+
+	if (log == null) {
+	    return;
+	}
+	try {
+	    log.writeLong(time);
+	    log.writeInt(reason.ordinal());
+	    log.writeInt(link);
+	    log.writeInt(byteCount);
+	} catch (IOException e) {
+	    System.err.println("ErrorSink: cannot write log: " + e.getMessage());
+	    log = null;
+	}
+
+    } // log ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    private static void flushLog () {
+
+	if (log == null) {
+	    return;
+	}
+	try {
+	    log.flush();
+	} catch (IOException e) {
+	    System.err.println("ErrorSink: cannot write log: " + e.getMessage());
+	    log = null;
+	}
+
+    } // flushLog ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    private static DataOutputStream openLog (String path) {
+
+	if (path == null) {
+	    return null;
+	}
+	try {
+	    return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+	} catch (IOException e) {
+	    throw new RuntimeException("Cannot open error log " + path);
+	}
+
+    } // openLog ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The number of slots in the ring; a power of two. */
+    private static final int   CAPACITY = 1024;
+    private static final long  MASK     = CAPACITY - 1;
+
+    /**
+     * Per slot, the position of the event it may next hold (when free), or
+     * one past the position of the event it holds (when published).
+     */
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+
+    /** The contents of each slot. */
+    private static final long[] times      = new long[CAPACITY];
+    private static final int[]  reasons    = new int[CAPACITY];
+    private static final int[]  links      = new int[CAPACITY];
+    private static final int[]  byteCounts = new int[CAPACITY];
+
+    /** The position of the next event to be reported. */
+    private static final AtomicLong tail     = new AtomicLong();
+
+    /** The number of events the consumer has handled. */
+    private static final AtomicLong consumed = new AtomicLong();
+
+    /** Counts of events not printed, and of events lost to a full ring. */
+    private static final LongAdder  suppressed = new LongAdder();
+    private static final LongAdder  overflowed = new LongAdder();
+
+    /** The most events printed per second. */
+    private static final int  RATE_LIMIT       = Integer.getInteger("errors.rate", 20);
+
+    /** How long the consumer idles when there is nothing to do. */
+    private static final long IDLE_WAIT        = 1000000;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private static final Reason[] REASONS = Reason.values();
+
+    /** The rate limiting window, used only by the consumer. */
+    private static long windowStart   = System.nanoTime() - NANOS_PER_SECOND;
+    private static int  windowPrinted = 0;
+
+    /** The binary event log, if any; used only by the consumer. */
+    private static DataOutputStream log = openLog(System.getProperty("errors.log"));
+
+    static {
+	for (int i = 0; i < CAPACITY; i += 1) {
+	    sequences.set(i, i);
+	}
+	Thread consumer = new Thread(ErrorSink::consume, "ErrorSink");
+	consumer.setDaemon(true);
+	consumer.start();
+    }
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ErrorSink
+// =============================================================================
@@ -3,6 +3,7 @@
 
 import java.util.Queue;
 import java.util.LinkedList;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -50,6 +51,7 @@ public class Host {
      */
     public void send (byte[] data) {
 
+	bytesSent.add(data.length);
 	dataLinkLayer.send(data);
 	
     } // send ()
@@ -67,6 +69,7 @@ public class Host {
     public void receive (byte[] data) {
 
 	// Add the bytes into the buffer.
+	bytesReceived.add(data.length);
 	for (int i = 0; i < data.length; i += 1) {
 	    buffer.add(data[i]);
 	}
@@ -115,6 +118,12 @@ public class Host {
 
     /** Whether to emit debugging information. */
     private static final boolean debug = false;
+
+    /** The number of bytes sent and received by all hosts. */
+    private static final LongAdder bytesSent
+	= Statistics.counter("host.bytesSent");
+    private static final LongAdder bytesReceived
+	= Statistics.counter("host.bytesReceived");
     // =========================================================================
 
     
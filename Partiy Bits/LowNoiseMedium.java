@@ -60,10 +60,12 @@ public class LowNoiseMedium extends Medium {
 		    System.out.println("LowNoiseMedium.transmit(): Flipped bit!");
 		}
 		bit = !bit;
+		bitsFlipped.increment();
 	    }
 
 	    PhysicalLayer receiver = clientIterator.next();
 	    if (receiver != sender) {
+		bitsCarried.increment();
 		receiver.receive(bit);
 	    }
 
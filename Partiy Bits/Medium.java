@@ -6,6 +6,7 @@ import java.util.LinkedList;
 import java.util.Queue;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -115,6 +116,14 @@ public abstract class Medium {
 
     /** Whether to emit debugging information. */
     protected static final boolean debug = false;
+
+    /** The number of bits carried, counted once per receiver. */
+    protected static final LongAdder bitsCarried
+	= Statistics.counter("medium.bitsCarried");
+
+    /** The number of bits flipped by noise. */
+    protected static final LongAdder bitsFlipped
+	= Statistics.counter("medium.bitsFlipped");
     // =========================================================================
     
 
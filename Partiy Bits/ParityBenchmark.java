@@ -0,0 +1,229 @@
+// =============================================================================
+// IMPORTS
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Compare the cost and error handling of the parity-based data link layers.
+ * Random frames are damaged with a given number of flipped bits (never in the
+ * start or stop tags) and then received, and each outcome is tallied: the
+ * original data delivered, the damage detected and the frame dropped, or
+ * wrong data delivered undetected.
+ *
+ * Run as <code>java ParityBenchmark [trials]</code>.
+ *
+ * @file   ParityBenchmark.java
+ * @date   October 2026
+ */
+public class ParityBenchmark {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The entry point.
+     *
+     * @param args Optionally, the number of trials per measurement.
+     */
+    public static void main (String[] args) {
+
+	int trials = (args.length > 0 ? Integer.parseInt(args[0]) : 100000);
+
+	ParityDataLinkLayer     parity     = new ParityDataLinkLayer();
+	TwoDParityDataLinkLayer correcting = new TwoDParityDataLinkLayer();
+	TwoDParityDataLinkLayer detecting  = new TwoDParityDataLinkLayer();
+	correcting.correctErrors = true;
+	detecting.correctErrors  = false;
+
+	DataLinkLayer[] layers = { parity, correcting, detecting };
+	String[]        names  = { "Parity", "TwoDParity (correct)",
+				    "TwoDParity (detect)" };
+
+	// Dropped frames are reported on standard output; keep that quiet
+	// while measuring.
+	PrintStream out = System.out;
+	System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+	String[] results = new String[layers.length];
+	for (int l = 0; l < layers.length; l += 1) {
+
+	    layers[l].byteBuffer = new LinkedList<Byte>();
+
+	    // Warm up, then time clean frames.
+	    Random random = new Random(5);
+	    timeFrames(layers[l], random, trials);
+	    long   time   = timeFrames(layers[l], random, trials);
+	    results[l] = String.format("%-22s %8.1f ns/frame\n",
+				       names[l],
+				       (double)time / trials);
+
+	    // Damage frames with one through four flipped bits.
+	    for (int flips = 1; flips <= 4; flips += 1) {
+		int[] outcomes = damageFrames(layers[l], random, flips, trials);
+		results[l] += String.format("    %d-bit errors:  %6.2f%% delivered  " +
+					    "%6.2f%% dropped  %6.2f%% undetected\n",
+					    flips,
+					    100.0 * outcomes[DELIVERED] / trials,
+					    100.0 * outcomes[DROPPED]   / trials,
+					    100.0 * outcomes[UNDETECTED] / trials);
+	    }
+
+	}
+
+	ErrorSink.flush();
+	System.setOut(out);
+	for (String result : results) {
+	    System.out.print(result);
+	}
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Frame and then receive undamaged frames, timing the whole round trip.
+     *
+     * @return the total time taken, in nanoseconds.
+     */
+    private static long timeFrames (DataLinkLayer layer,
+				    Random        random,
+				    int           trials) {
+
+	byte[] data  = new byte[FRAME_SIZE];
+	long   start = System.nanoTime();
+	for (int t = 0; t < trials; t += 1) {
+	    random.nextBytes(data);
+	    receive(layer, layer.createFrame(data));
+	}
+	return System.nanoTime() - start;
+
+    } // timeFrames ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Frame random data, flip the given number of distinct bits within each
+     * frame's contents, receive it, and tally the outcomes.
+     *
+     * @return the counts of each outcome, indexed by <code>DELIVERED</code>,
+     *         <code>DROPPED</code>, and <code>UNDETECTED</code>.
+     */
+    private static int[] damageFrames (DataLinkLayer layer,
+				       Random        random,
+				       int           flips,
+				       int           trials) {
+
+	int[]  outcomes = new int[3];
+	byte[] data     = new byte[FRAME_SIZE];
+	for (int t = 0; t < trials; t += 1) {
+
+	    random.nextBytes(data);
+	    byte[] frame = layer.createFrame(data);
+
+	    // Choose distinct bits between the start and stop tags.
+	    int   bits    = (frame.length - 2) * Byte.SIZE;
+	    int[] flipped = new int[flips];
+	    for (int f = 0; f < flips; f += 1) {
+		int bit;
+		do {
+		    bit = random.nextInt(bits);
+		} while (contains(flipped, f, bit));
+		flipped[f] = bit;
+		frame[1 + bit / Byte.SIZE] ^= 1 << (bit % Byte.SIZE);
+	    }
+
+	    byte[] received = receive(layer, frame);
+	    if (received == null) {
+		outcomes[DROPPED] += 1;
+	    } else if (Arrays.equals(data, received)) {
+		outcomes[DELIVERED] += 1;
+	    } else {
+		outcomes[UNDETECTED] += 1;
+	    }
+
+	}
+
+	return outcomes;
+
+    } // damageFrames ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Feed a frame to a layer one byte at a time, as its physical layer would.
+     *
+     * @return the data delivered, concatenated; <code>null</code> if none was.
+     */
+    private static byte[] receive (DataLinkLayer layer, byte[] frame) {
+
+	byte[] delivered = null;
+	for (byte b : frame) {
+	    layer.byteBuffer.add(b);
+	    byte[] data = layer.processFrame();
+	    if (data != null) {
+		if (delivered == null) {
+		    delivered = data;
+		} else {
+		    byte[] both = Arrays.copyOf(delivered,
+						delivered.length + data.length);
+		    System.arraycopy(data, 0, both, delivered.length, data.length);
+		    delivered = both;
+		}
+	    }
+	}
+	layer.byteBuffer.clear();
+
+	return delivered;
+
+    } // receive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    private static boolean contains (int[] values, int count, int value) {
+
+	for (int i = 0; i < count; i += 1) {
+	    if (values[i] == value) {
+		return true;
+	    }
+	}
+	return false;
+
+    } // contains ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The number of data bytes in each benchmarked frame. */
+    private static final int FRAME_SIZE = 8;
+
+    /** Indices into the tally of outcomes. */
+    private static final int DELIVERED  = 0;
+    private static final int DROPPED    = 1;
+    private static final int UNDETECTED = 2;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ParityBenchmark
+// =============================================================================
@@ -1,10 +1,10 @@
 // =============================================================================
 // IMPORTS
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.ArrayList;
 // =============================================================================
 
 
@@ -38,6 +38,7 @@ public class ParityDataLinkLayer extends DataLinkLayer {
 		while(i < data.length) {
 			// Begin with the start tag.
 			framingData.add(startTag);
+			framesSent.increment();
 			int counter = 0;
 			Queue<Byte> toAdd = new LinkedList<Byte>();
 			while(i < data.length && counter < frameSize){
@@ -49,6 +50,7 @@ public class ParityDataLinkLayer extends DataLinkLayer {
 				(currentByte == escapeTag)) {
 
 				toAdd.add(escapeTag);
+				escapesAdded.increment();
 
 				}
 
@@ -58,11 +60,9 @@ public class ParityDataLinkLayer extends DataLinkLayer {
 				counter++;
 			}
 			framingData.addAll(toAdd);
-			//Add the parity byte
-			byte parityByte = generateParity(toAdd);
+			//Add the parity byte, computed over the unescaped data
+			byte parityByte = generateParity(data, i - counter, counter);
 			framingData.add(parityByte);
-			//Clear the list
-			toAdd = new LinkedList<Byte>();
 			
 
 			// End with a stop tag.
@@ -87,178 +87,145 @@ public class ParityDataLinkLayer extends DataLinkLayer {
     
     // =========================================================================
     /**
-     * Determine whether the received, buffered data constitutes a complete
-     * frame.  If so, then remove the framing metadata and return the original
-     * data.  Note that any data preceding an escaped start tag is assumed to be
-     * part of a damaged frame, and is thus discarded.
+     * Consume the received, buffered bytes, extracting a frame as they
+     * arrive.  Unescaped bytes are added to the current frame and folded into
+     * its running parity as each arrives, so that once the stop tag is found,
+     * the frame is checked without another pass over it.  Note that
+     * any data preceding an unescaped start tag is assumed to be part of a
+     * damaged frame, and is thus discarded.
      *
-     * @return If the buffer contains a complete frame, the extracted, original
-     * data; <code>null</code> otherwise.
+     * @return If the buffer contained the end of a valid frame, the extracted,
+     * original data; <code>null</code> otherwise.
      */
     protected byte[] processFrame () {
 
-	// Search for a start tag.  Discard anything prior to it.
-	boolean        startTagFound = false;
-	Iterator<Byte>             i = byteBuffer.iterator();
-	while (!startTagFound && i.hasNext()) {
-	    byte current = i.next();
-	    if (current != startTag) {
-		i.remove();
-	    } else {
-		startTagFound = true;
-	    }
-	}
-
-	// If there is no start tag, then there is no frame.
-	if (!startTagFound) {
-	    return null;
-	}
-	
-	// Try to extract data while waiting for an unescaped stop tag.
-	Queue<Byte> extractedBytes = new LinkedList<Byte>();
-	int numBytes = 0;
-	boolean       stopTagFound = false;
-	while (!stopTagFound && i.hasNext()) {
-
-	    // Grab the next byte.  If it is...
-	    //   (a) An escape tag: Skip over it and grab what follows as
-	    //                      literal data.
-	    //   (b) A stop tag:    Remove all processed bytes from the buffer and
-	    //                      end extraction.
-	    //   (c) A start tag:   All that precedes is damaged, so remove it
-	    //                      from the buffer and restart extraction.
-	    //   (d) Otherwise:     Take it as literal data.
-	    byte current = i.next();
-	    if (current == escapeTag) {
-		if (i.hasNext()) {
-		    current = i.next();
-			numBytes++;
-		    extractedBytes.add(current);
-		} else {
-		    // An escape was the last byte available, so this is not a
-		    // complete frame.
-		    return null;
+	while (!byteBuffer.isEmpty()) {
+
+	    // Grab the next byte.  Outside of a frame, skip anything but a start
+	    // tag.  Within one, if the byte is...
+	    //   (a) Escaped:       Take it as literal data.
+	    //   (b) An escape tag: Take what follows as literal data.
+	    //   (c) A stop tag:    Check and deliver the frame.
+	    //   (d) A start tag:   All that precedes is damaged, so restart
+	    //                      extraction.
+	    //   (e) Otherwise:     Take it as literal data.
+	    byte current = byteBuffer.remove();
+	    if (!inFrame) {
+		if (current == startTag) {
+		    startFrame();
 		}
+	    } else if (escaped) {
+		escaped = false;
+		addToFrame(current);
+	    } else if (current == escapeTag) {
+		escaped = true;
 	    } else if (current == stopTag) {
-		cleanBufferUpTo(i);
-		stopTagFound = true;
+		inFrame = false;
+		byte[] extractedData = finishFrame();
+		if (extractedData != null) {
+		    return extractedData;
+		}
 	    } else if (current == startTag) {
-		cleanBufferUpTo(i);
-		extractedBytes = new LinkedList<Byte>();
+		resyncs.increment();
+		startFrame();
 	    } else {
-			numBytes++;
-			//Extract bytes
-			extractedBytes.add(current);
+		addToFrame(current);
 	    }
 
 	}
 
-	// If there is no stop tag, then the frame is incomplete.
-	if (!stopTagFound) {
+	return null;
+
+    } // processFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Begin extracting a new frame.
+     */
+    private void startFrame () {
+
+	inFrame    = true;
+	escaped    = false;
+	frameCount = 0;
+	frameXor   = 0;
+
+    } // startFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Add a byte of extracted data to the current frame, folding it into the
+     * running parity.
+     *
+     * @param b The extracted byte.
+     */
+    private void addToFrame (byte b) {
+
+	if (frameCount < frameBytes.length) {
+	    frameBytes[frameCount] = b;
+	}
+	frameCount += 1;
+	frameXor   ^= b;
+	lastByte    = b;
+
+    } // addToFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Check a completely extracted frame, whose last byte is its parity.
+     *
+     * @return the frame's data if it is valid; <code>null</code> otherwise.
+     */
+    private byte[] finishFrame () {
+
+	//Check if more than 9 bytes were found
+	if (frameCount > frameSize + 1) {
+	    dropFrame(ErrorSink.Reason.FRAME_TOO_LONG, frameCount);
 	    return null;
 	}
-	//Check if more than 9 bytes were found 
-	if(numBytes > frameSize+1){
-		printError("There were more than 8 bytes found in the frame");
-		return null;
+	//A frame without even a parity byte is damaged
+	if (frameCount < 1) {
+	    dropFrame(ErrorSink.Reason.FRAME_TOO_SHORT, frameCount);
+	    return null;
 	}
-	
-	//Have to get everything in front of the parity byte to check if corrupted
-	Queue<Byte> temp = new LinkedList<Byte>();
-	for(int counter = 0; counter < numBytes-1; counter++){
-			byte b = extractedBytes.remove();
-			temp.add(b);
-		}
-	numBytes = 0;
-	byte parityR = extractedBytes.remove();
-	//Genertate parity of extracted data
-	byte parityG = generateParity( new LinkedList<Byte>(temp));
-	//See if data was corrupted
-	if(parityR != parityG){
-		printError("Parity bits do not match");
-		printError(temp);
-		return null;
+	//The parity of the data is the parity of the XOR of its bytes; see if
+	//the data was corrupted
+	byte parityG = (byte)(Integer.bitCount((frameXor ^ lastByte) & 0xff) % 2);
+	if (lastByte != parityG) {
+	    dropFrame(ErrorSink.Reason.CHECK_FAILED, frameCount);
+	    return null;
 	}
-	
 
-	// Convert to the desired byte array.
+	// Deliver everything but the parity byte.
 	if (debug) {
-	    System.out.println("DumbDataLinkLayer.processFrame(): Got whole frame!");
-	}
-	byte[] extractedData = new byte[temp.size()];
-	int                j = 0;
-	i = temp.iterator();
-	while (i.hasNext()) {
-	    extractedData[j] = i.next();
-	    if (debug) {
-		System.out.printf("DumbDataLinkLayer.processFrame():\tbyte[%d] = %c\n",
-				  j,
-				  extractedData[j]);
-	    }
-	    j += 1;
+	    System.out.println("ParityDataLinkLayer.processFrame(): Got whole frame!");
 	}
+	return Arrays.copyOf(frameBytes, frameCount - 1);
 
-	return extractedData;
-
-    } // processFrame ()
+    } // finishFrame ()
     // ===============================================================
 
 
 
     // ===============================================================
-    private void cleanBufferUpTo (Iterator<Byte> end) {
-
-	Iterator<Byte> i = byteBuffer.iterator();
-	while (i.hasNext() && i != end) {
-	    i.next();
-	    i.remove();
-	}
-
-    }
-	
-	//Given a queue of bytes, return parity
-	private byte generateParity(Queue<Byte> myList){
+	//Given a range of bytes, return parity
+	private byte generateParity(byte[] data, int offset, int length){
 		int ones = 0;
-		while(myList.peek() != null){
-			byte cur = myList.remove();
-			ones += Integer.bitCount(cur & 0xff);
+		for (int i = offset; i < offset + length; i++) {
+			ones += Integer.bitCount(data[i] & 0xff);
 		}
 		byte parity = (byte)(ones % 2);
 		return parity;
 	
 	}
-	//Given a queue of bytes and a parity, return True if no error is detected
-	private boolean checkParity(Queue<Byte> myList, byte parity){
-		byte generatedParity = generateParity(myList);
-		return generatedParity == parity;
-	}
-	private void printError(Queue<Byte> myList){
-		System.out.println("Error detected");
-		while(myList.peek() != null){
-			byte b = myList.remove();
-			char c = (char) (b & 0xFF);
-			System.out.print(c + " ");
-		}
-	}
-	private void printError(ArrayList<Byte> myList){
-		System.out.println("Error detected");
-		for(int i = 0; i < myList.size();i++){
-			byte b = myList.get(i);
-			char c = (char) (b & 0xFF);
-			System.out.print(c + " ");
-		}
-	}
-	private void printError(byte [] bytes){
-		System.out.println("Error detected");
-		for(int i = 0; i < bytes.length; i++){
-			byte b = bytes[i];
-			char c = (char) (b & 0xFF);
-			System.out.print(c + " ");
-		}
-	}
-	private void printError(String a){
-		System.out.println(a);
-	}
 	
 	
 	
@@ -278,6 +245,17 @@ public class ParityDataLinkLayer extends DataLinkLayer {
     private final byte stopTag   = (byte)'}';
     private final byte escapeTag = (byte)'\\';
 	private final int frameSize = 8;
+
+    // The state of the frame being extracted: whether a start tag has been
+    // seen, whether the last byte was an escape, the data bytes (including
+    // the parity byte) and their count, and the XOR of, and last of, those
+    // bytes so far.
+    private boolean inFrame    = false;
+    private boolean escaped    = false;
+    private byte[]  frameBytes = new byte[frameSize + 1];
+    private int     frameCount = 0;
+    private byte    frameXor   = 0;
+    private byte    lastByte   = 0;
     // ===============================================================
 
 
@@ -0,0 +1,83 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A registry of named event counters shared by every layer of the simulated
+ * network.  Layers look their counters up once, when loaded, and keep them;
+ * counting is then just an increment of a <code>LongAdder</code>, which
+ * stripes its cells across threads so that concurrent hosts do not contend.
+ *
+ * Counter names are of the form <i>layer</i>.<i>event</i>, so that the
+ * summary groups by layer.
+ *
+ * @file   Statistics.java
+ * @date   October 2026
+ */
+public class Statistics {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the counter of the given name, creating it if needed.
+     *
+     * @param name The name of the counter.
+     * @return the counter.
+     */
+    public static LongAdder counter (String name) {
+
+	return counters.computeIfAbsent(name, k -> new LongAdder());
+
+    } // counter ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Print the current value of every counter, sorted by name.
+     */
+    public static void print () {
+
+	Map<String, LongAdder> sorted = new TreeMap<String, LongAdder>(counters);
+	System.out.println("Statistics:");
+	for (Map.Entry<String, LongAdder> entry : sorted.entrySet()) {
+	    System.out.printf("    %-32s %12d\n",
+			      entry.getKey(),
+			      entry.getValue().sum());
+	}
+
+    } // print ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The counters, by name. */
+    private static final Map<String, LongAdder> counters
+	= new ConcurrentHashMap<String, LongAdder>();
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class Statistics
+// =============================================================================
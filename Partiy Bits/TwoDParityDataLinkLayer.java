@@ -0,0 +1,367 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+// =============================================================================
+
+
+// =============================================================================
+/**
+ * @file   TwoDParityDataLinkLayer.java
+ * @date   October 2026
+ *
+ * A data link layer that frames up to eight data bytes at a time, like
+ * <code>ParityDataLinkLayer</code>, but protects them with two-dimensional
+ * (row/column) parity.  The data bytes are treated as the rows of an 8x8 bit
+ * matrix; each frame carries a row parity byte, a column parity byte, and a
+ * corner byte holding the parity of the parity bytes.
+ *
+ * With correction enabled, any single-bit error (in the data or in the
+ * parity bytes themselves) is corrected in place and every two-bit error is
+ * detected.  With correction disabled, every one-, two-, and three-bit error
+ * is detected.  A code with this distance cannot do both at once: some
+ * three-bit errors look exactly like a correctable single-bit error.
+ */
+public class TwoDParityDataLinkLayer extends DataLinkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Embed a raw sequence of bytes into a framed sequence.
+     *
+     * @param  data The raw sequence of bytes to be framed.
+     * @return A complete frame.
+     */
+    protected byte[] createFrame (byte[] data) {
+
+	Queue<Byte> framingData = new LinkedList<Byte>();
+
+	int i = 0;
+	while (i < data.length) {
+
+	    // Begin with the start tag.
+	    framingData.add(startTag);
+	    framesSent.increment();
+
+	    // Add up to a frame's worth of data, packing it into a word as we
+	    // go so that its parity can be computed.
+	    int  count = 0;
+	    long word  = 0;
+	    while (i < data.length && count < frameSize) {
+		addEscaped(framingData, data[i]);
+		word |= (data[i] & 0xffL) << (count * Byte.SIZE);
+		i     += 1;
+		count += 1;
+	    }
+
+	    // Add the row, column, and corner parity.  The corner byte is only
+	    // ever 0 or 1, so it never needs escaping.
+	    int rowParity = rowParity(word);
+	    int colParity = columnParity(word);
+	    addEscaped(framingData, (byte)rowParity);
+	    addEscaped(framingData, (byte)colParity);
+	    framingData.add((byte)(Integer.bitCount(colParity) & 1));
+
+	    // End with a stop tag.
+	    framingData.add(stopTag);
+
+	}
+
+	// Convert to the desired byte array.
+	byte[] framedData = new byte[framingData.size()];
+	Iterator<Byte>  k = framingData.iterator();
+	int             j = 0;
+	while (k.hasNext()) {
+	    framedData[j++] = k.next();
+	}
+
+	return framedData;
+
+    } // createFrame ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Consume the received, buffered bytes, extracting a frame as they
+     * arrive.  Once the stop tag is found, check (and if possible, correct)
+     * the frame's data.  Note that
+     * any data preceding an unescaped start tag is assumed to be part of a
+     * damaged frame, and is thus discarded.
+     *
+     * @return If the buffer contained the end of a valid frame, the extracted,
+     * original data; <code>null</code> otherwise.
+     */
+    protected byte[] processFrame () {
+
+	while (!byteBuffer.isEmpty()) {
+
+	    // Grab the next byte.  Outside of a frame, skip anything but a start
+	    // tag.  Within one, if the byte is...
+	    //   (a) Escaped:       Take it as literal data.
+	    //   (b) An escape tag: Take what follows as literal data.
+	    //   (c) A stop tag:    Check and deliver the frame.
+	    //   (d) A start tag:   All that precedes is damaged, so restart
+	    //                      extraction.
+	    //   (e) Otherwise:     Take it as literal data.
+	    byte current = byteBuffer.remove();
+	    if (!inFrame) {
+		if (current == startTag) {
+		    startFrame();
+		}
+	    } else if (escaped) {
+		escaped = false;
+		addToFrame(current);
+	    } else if (current == escapeTag) {
+		escaped = true;
+	    } else if (current == stopTag) {
+		inFrame = false;
+		byte[] extractedData = finishFrame();
+		if (extractedData != null) {
+		    return extractedData;
+		}
+	    } else if (current == startTag) {
+		resyncs.increment();
+		startFrame();
+	    } else {
+		addToFrame(current);
+	    }
+
+	}
+
+	return null;
+
+    } // processFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Begin extracting a new frame.
+     */
+    private void startFrame () {
+
+	inFrame    = true;
+	escaped    = false;
+	frameCount = 0;
+
+    } // startFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Add a byte of extracted data to the current frame.
+     *
+     * @param b The extracted byte.
+     */
+    private void addToFrame (byte b) {
+
+	if (frameCount < frameBytes.length) {
+	    frameBytes[frameCount] = b;
+	}
+	frameCount += 1;
+
+    } // addToFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Check, and if need be correct, a completely extracted frame.
+     *
+     * @return the frame's data if it is valid or was corrected;
+     *         <code>null</code> otherwise.
+     */
+    private byte[] finishFrame () {
+
+	// There must be at least one data byte and the three parity bytes.
+	int numBytes = frameCount;
+	if (numBytes < checkBytes + 1 || numBytes > frameSize + checkBytes) {
+	    dropFrame((numBytes < checkBytes + 1
+		       ? ErrorSink.Reason.FRAME_TOO_SHORT
+		       : ErrorSink.Reason.FRAME_TOO_LONG),
+		      numBytes);
+	    return null;
+	}
+
+	// Split the frame into its data word and its parity bytes.
+	int  dataLength = numBytes - checkBytes;
+	long word       = 0;
+	for (int j = 0; j < dataLength; j += 1) {
+	    word |= (frameBytes[j] & 0xffL) << (j * Byte.SIZE);
+	}
+	int rowParity = frameBytes[dataLength] & 0xff;
+	int colParity = frameBytes[dataLength + 1] & 0xff;
+	int corner    = frameBytes[dataLength + 2] & 0xff;
+
+	// The corner carries one bit; any other set means damage that neither
+	// syndrome would show.
+	if (corner > 1) {
+	    dropFrame(ErrorSink.Reason.CHECK_FAILED, numBytes);
+	    return null;
+	}
+
+	// Compute the syndromes.  Bits 0-7 of each flag the data rows and
+	// columns whose parity fails; bit 8 flags the parity column and the
+	// parity row, each checked against the corner.
+	long rowSyndrome = (rowParity ^ rowParity(word)) |
+	    ((Integer.bitCount(colParity) ^ corner) & 1) << Byte.SIZE;
+	long colSyndrome = (colParity ^ columnParity(word)) |
+	    ((Integer.bitCount(rowParity) ^ corner) & 1) << Byte.SIZE;
+
+	if ((rowSyndrome | colSyndrome) != 0) {
+
+	    // Only a lone row and lone column failure, marking a single flipped
+	    // bit, can be corrected.
+	    if (!correctErrors ||
+		Long.bitCount(rowSyndrome) != 1 ||
+		Long.bitCount(colSyndrome) != 1) {
+		dropFrame(ErrorSink.Reason.CHECK_FAILED, numBytes);
+		return null;
+	    }
+
+	    // If the flipped bit is in the data, flip it back; otherwise, the
+	    // error was in a parity byte and the data is intact.
+	    int row    = Long.numberOfTrailingZeros(rowSyndrome);
+	    int column = Long.numberOfTrailingZeros(colSyndrome);
+	    if (row < Byte.SIZE && column < Byte.SIZE) {
+		if (row >= dataLength) {
+		    dropFrame(ErrorSink.Reason.CHECK_FAILED, numBytes);
+		    return null;
+		}
+		word ^= 1L << (row * Byte.SIZE + column);
+	    }
+	    if (debug) {
+		System.out.printf("TwoDParityDataLinkLayer.finishFrame(): " +
+				  "corrected bit at row %d, column %d\n",
+				  row,
+				  column);
+	    }
+
+	}
+
+	// Unpack the (possibly corrected) data word.
+	if (debug) {
+	    System.out.println("TwoDParityDataLinkLayer.finishFrame(): Got whole frame!");
+	}
+	byte[] extractedData = new byte[dataLength];
+	for (int j = 0; j < dataLength; j += 1) {
+	    extractedData[j] = (byte)(word >>> (j * Byte.SIZE));
+	}
+
+	return extractedData;
+
+    } // finishFrame ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Compute the parity of each row of a data word.
+     *
+     * @param  word Up to eight data bytes, byte <i>k</i> in bits
+     *              <i>8k</i> through <i>8k + 7</i>.
+     * @return a byte whose bit <i>k</i> is the even parity of byte <i>k</i>.
+     */
+    static int rowParity (long word) {
+
+	// Fold each byte onto its lowest bit...
+	long folded = word ^ (word >>> 4);
+	folded ^= folded >>> 2;
+	folded ^= folded >>> 1;
+	folded &= 0x0101010101010101L;
+
+	// ...and gather those eight bits into the top byte.
+	return (int)((folded * 0x0102040810204080L) >>> 56);
+
+    } // rowParity ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    /**
+     * Compute the parity of each column of a data word.
+     *
+     * @param  word Up to eight data bytes, byte <i>k</i> in bits
+     *              <i>8k</i> through <i>8k + 7</i>.
+     * @return a byte whose bit <i>j</i> is the even parity of bit <i>j</i>
+     *         across all of the bytes.
+     */
+    static int columnParity (long word) {
+
+	long folded = word ^ (word >>> 32);
+	folded ^= folded >>> 16;
+	folded ^= folded >>> 8;
+	return (int)(folded & 0xff);
+
+    } // columnParity ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    private void addEscaped (Queue<Byte> framingData, byte currentByte) {
+
+	// If the byte is itself a metadata tag, then precede it with an
+	// escape tag.
+	if ((currentByte == startTag) ||
+	    (currentByte == stopTag) ||
+	    (currentByte == escapeTag)) {
+	    framingData.add(escapeTag);
+	    escapesAdded.increment();
+	}
+	framingData.add(currentByte);
+
+    } // addEscaped ()
+    // ===============================================================
+
+
+
+    // ===============================================================
+    // DATA MEMBERS
+    // ===============================================================
+
+
+
+    // ===============================================================
+    // The start tag, stop tag, and the escape tag.
+    private final byte startTag  = (byte)'{';
+    private final byte stopTag   = (byte)'}';
+    private final byte escapeTag = (byte)'\\';
+    private final int frameSize  = 8;
+
+    // The row, column, and corner parity bytes that end each frame.
+    private static final int checkBytes = 3;
+
+    // The state of the frame being extracted: whether a start tag has been
+    // seen, whether the last byte was an escape, and the data and parity
+    // bytes and their count.
+    private boolean inFrame    = false;
+    private boolean escaped    = false;
+    private byte[]  frameBytes = new byte[frameSize + checkBytes];
+    private int     frameCount = 0;
+
+    /**
+     * Whether single-bit errors are corrected (detecting two-bit errors) or
+     * only detected (detecting up to three-bit errors).  Correction is on
+     * unless run with <code>-Dparity.detectOnly=true</code>.
+     */
+    protected boolean correctErrors = !Boolean.getBoolean("parity.detectOnly");
+    // ===============================================================
+
+
+
+// ===================================================================
+} // class TwoDParityDataLinkLayer
+// ===================================================================
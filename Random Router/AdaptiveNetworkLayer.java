@@ -0,0 +1,262 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   AdaptiveNetworkLayer.java
+ * @date   October 2026
+ *
+ * A network layer that learns the topology by link-state advertisements, as
+ * in <code>LinkStateNetworkLayer</code>, but chooses each packet's next hop
+ * afresh among several, by how busy their links are at that moment.
+ *
+ * Whenever the topology changes, each host finds its distance to every other
+ * host, and each of its neighbors' distances, by the weights advertised.  The
+ * candidates for the next hop to a destination are the neighbors strictly
+ * nearer to it than this host is, through which the path is no more than
+ * <code>-Dadaptive.stretch=0</code> percent longer than the shortest.  Since
+ * each hop must bring a packet strictly nearer, no choice among the
+ * candidates, at any host, can send a packet in a loop.  The candidates are
+ * kept in order of the length of the path through them, shortest first.
+ *
+ * Each packet, sent or forwarded, goes to the candidate by which it is
+ * expected to arrive soonest.  The wait for a link is judged from its output
+ * queue: the bytes queued, at the rate at which the link has recently drained
+ * them, or the exponentially weighted average of recent packets' sojourn
+ * times, whichever is greater; a link with nothing queued has no wait.  The
+ * wait, plus the time to send one packet, is scaled by the length of the path,
+ * taking the queues beyond to be like this one, so that a longer path is
+ * taken only when it saves waiting in proportion.  Ties, as when every link
+ * is idle, go to the shortest path.  As a link's queue builds, packets spread
+ * onto the others, and return as it drains.
+ *
+ * Packets of a flow may thus arrive out of order, to be put back in order by
+ * the reorder buffer or the transport layer.  All the fragments of a packet
+ * take the same link.  Control packets and packets to groups are handled as
+ * by the link-state layer, and destinations are routed individually whether
+ * or not routes are summarized.
+ */
+public class AdaptiveNetworkLayer extends LinkStateNetworkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Start with no candidates.
+     */
+    public AdaptiveNetworkLayer () {
+
+	candidates = new Candidates[0];
+
+    } // AdaptiveNetworkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the candidate link with the least expected delay, or the link
+     * given by the forwarding table if there are no candidates.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @return the link; <code>null</code> if no route is yet known.
+     */
+    protected DataLinkLayer route (int destination) {
+
+	Candidates[] known = candidates;
+	Candidates   next  = (destination >= 0 && destination < known.length
+			      ? known[destination]
+			      : null);
+	if (next == null) {
+	    return super.route(destination);
+	}
+	DataLinkLayer[] choices = next.links;
+	if (choices.length == 1) {
+	    return choices[0];
+	}
+
+	// Keep the earliest, and so shortest, of those equally good.
+	DataLinkLayer best      = choices[0];
+	long          bestDelay = Long.MAX_VALUE;
+	int           bestBytes = Integer.MAX_VALUE;
+	for (int i = 0; i < choices.length; i += 1) {
+	    PacketScheduler queue = outputQueues.get(choices[i]);
+	    int             bytes = queue.bytes();
+	    long            wait  = (bytes == 0
+				     ? 0
+				     : Math.max(queue.estimatedWait(), queue.averageSojourn()));
+	    long            delay = ((wait + queue.estimatedWait(linkMtus.get(choices[i]))) *
+				     next.lengths[i]);
+	    if (delay < bestDelay || (delay == bestDelay && bytes < bestBytes)) {
+		best      = choices[i];
+		bestDelay = delay;
+		bestBytes = bytes;
+	    }
+	}
+	if (best != choices[0]) {
+	    packetsDiverted.increment();
+	}
+	return best;
+
+    } // route ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Install a new forwarding table and, from the same database, find the
+     * candidates for the next hop to every reachable host.
+     *
+     * @param table The link to use for each destination, indexed by its
+     *              address; <code>null</code> for unreachable ones.
+     */
+    protected void installRoutes (DataLinkLayer[] table) {
+
+	super.installRoutes(table);
+
+	// Find this host's distances, and each neighbor's.
+	int    hosts    = AddressRegistry.size();
+	int[]  parent   = new int[hosts];
+	int[]  order    = new int[hosts];
+	long[] distance = new long[hosts];
+	shortestPaths(address, parent, order, distance);
+
+	int             degree    = linkWeights.size();
+	int[]           neighbors = new int[degree];
+	long[]          weights   = new long[degree];
+	long[][]        through   = new long[degree][hosts];
+	DataLinkLayer[] links     = new DataLinkLayer[degree];
+	int             n         = 0;
+	for (Map.Entry<Integer, Integer> entry : linkWeights.entrySet()) {
+	    neighbors[n] = entry.getKey();
+	    weights[n]   = entry.getValue();
+	    links[n]     = neighborLink(neighbors[n]);
+	    shortestPaths(neighbors[n], parent, order, through[n]);
+	    n += 1;
+	}
+
+	// A destination's candidates are the neighbors nearer to it, by paths
+	// not too long, in order of the length of the path through each, then
+	// of address.
+	Candidates[] choices = new Candidates[hosts];
+	int[]        nearer  = new int[degree];
+	for (int destination = 0; destination < hosts; destination += 1) {
+
+	    if (destination == address || distance[destination] == Long.MAX_VALUE) {
+		continue;
+	    }
+	    int count = 0;
+	    for (int k = 0; k < degree; k += 1) {
+		if (links[k] == null || through[k][destination] >= distance[destination]) {
+		    continue;
+		}
+		long length = weights[k] + through[k][destination];
+		if (length * 100 > distance[destination] * (100 + STRETCH)) {
+		    continue;
+		}
+		int  i      = count;
+		while (i > 0 &&
+		       (weights[nearer[i - 1]] + through[nearer[i - 1]][destination] > length ||
+			(weights[nearer[i - 1]] + through[nearer[i - 1]][destination] == length &&
+			 neighbors[nearer[i - 1]] > neighbors[k]))) {
+		    nearer[i] = nearer[i - 1];
+		    i        -= 1;
+		}
+		nearer[i]  = k;
+		count     += 1;
+	    }
+	    if (count == 0) {
+		continue;
+	    }
+
+	    choices[destination] = new Candidates(count);
+	    for (int i = 0; i < count; i += 1) {
+		choices[destination].links[i]   = links[nearer[i]];
+		choices[destination].lengths[i] = (weights[nearer[i]] +
+						   through[nearer[i]][destination]);
+	    }
+	    if (count > 1) {
+		multipathDestinations.increment();
+	    }
+
+	}
+
+	candidates = choices;
+
+    } // installRoutes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The candidates for the next hop to one destination, shortest path
+     * first, and the length of the path through each.
+     */
+    private static class Candidates {
+
+	Candidates (int count) {
+	    links   = new DataLinkLayer[count];
+	    lengths = new long[count];
+	}
+
+	final DataLinkLayer[] links;
+	final long[]          lengths;
+
+    } // class Candidates
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /**
+     * The candidates for the next hop to each destination, indexed by
+     * address; <code>null</code> for destinations with none.  Replaced whole,
+     * never modified, so that it may be read by the client's thread.
+     */
+    private volatile Candidates[] candidates;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /**
+     * How much longer than the shortest, in percent, a path through a
+     * candidate may be; <code>-Dadaptive.stretch=</code>.
+     */
+    public static final int STRETCH = Integer.getInteger("adaptive.stretch", 0);
+
+    /**
+     * The destinations found to have more than one candidate, summed over
+     * every route computation, and the packets sent by other than the first
+     * candidate.
+     */
+    private static final LongAdder multipathDestinations
+	= Statistics.counter("adaptive.multipathDestinations");
+    private static final LongAdder packetsDiverted
+	= Statistics.counter("adaptive.packetsDiverted");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class AdaptiveNetworkLayer
+// =============================================================================
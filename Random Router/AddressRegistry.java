@@ -0,0 +1,212 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Assigns each hostname a network address.  Addresses are dense -- the first
+ * name registered is given 0, the next 1, and so on -- so that a network
+ * layer may keep per-destination state in an array indexed by address, and no
+ * two hostnames can ever share an address.
+ *
+ * Each host may also be given a hierarchical address, which says where it is
+ * rather than who it is: an area in the top 16 bits, a subnet within the area
+ * in the next 8, and the host within the subnet in the last 8.  Hosts that
+ * are near one another share prefixes, so that a route to a whole area or
+ * subnet may stand in for routes to each of its hosts.  A host not given one
+ * takes its dense address, which splits into the same fields.
+ *
+ * @file   AddressRegistry.java
+ * @date   October 2026
+ */
+public class AddressRegistry {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the address of a hostname, assigning it the next address if it
+     * has none.
+     *
+     * @param hostname The name of the host.
+     * @return its address.
+     */
+    public static synchronized int intern (String hostname) {
+
+	Integer address = addresses.get(hostname);
+	if (address == null) {
+	    address = hostnames.size();
+	    addresses.put(hostname, address);
+	    hostnames.add(hostname);
+	}
+	return address;
+
+    } // intern ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the address of a registered hostname.
+     *
+     * @param hostname The name of the host.
+     * @return its address.
+     * @throws RuntimeException if the hostname has not been registered.
+     */
+    public static synchronized int lookup (String hostname) {
+
+	Integer address = addresses.get(hostname);
+	if (address == null) {
+	    throw new RuntimeException("Unknown host " + hostname);
+	}
+	return address;
+
+    } // lookup ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the hostname to which an address was assigned.
+     *
+     * @param address The address.
+     * @return the hostname; <code>null</code> if the address is unassigned.
+     */
+    public static synchronized String hostname (int address) {
+
+	return (address >= 0 && address < hostnames.size()
+		? hostnames.get(address)
+		: null);
+
+    } // hostname ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of addresses assigned, which is one more than the
+     * largest address.
+     *
+     * @return the number of registered hostnames.
+     */
+    public static synchronized int size () {
+
+	return hostnames.size();
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Give hosts their hierarchical addresses, filling each subnet and then
+     * each area in turn.  Neighboring hosts should be listed near one
+     * another, so that each area and subnet covers one part of the network.
+     *
+     * @param ordered    The hostnames, in the order in which to number them.
+     * @param areaSize   The most hosts in an area.
+     * @param subnetSize The most hosts in a subnet.
+     * @throws RuntimeException if either size does not fit its field, or a
+     *                          hostname has not been registered.
+     */
+    public static synchronized void assignHierarchy (List<String> ordered,
+						     int          areaSize,
+						     int          subnetSize) {
+
+	if (subnetSize < 1 || subnetSize > 1 << HOST_BITS || areaSize < subnetSize ||
+	    (areaSize + subnetSize - 1) / subnetSize > 1 << SUBNET_BITS) {
+	    throw new RuntimeException("Invalid area size " + areaSize +
+				       " or subnet size " + subnetSize);
+	}
+
+	int[] assigned = new int[hostnames.size()];
+	for (int address = 0; address < assigned.length; address += 1) {
+	    assigned[address] = address;
+	}
+
+	for (int i = 0; i < ordered.size(); i += 1) {
+	    int area   = i / areaSize;
+	    int subnet = (i % areaSize) / subnetSize;
+	    int host   = (i % areaSize) % subnetSize;
+	    if (area >= 1 << AREA_BITS) {
+		throw new RuntimeException("Too many hosts for hierarchical addresses");
+	    }
+	    assigned[lookup(ordered.get(i))]
+		= area << (SUBNET_BITS + HOST_BITS) | subnet << HOST_BITS | host;
+	}
+	hierarchicalAddresses = assigned;
+
+    } // assignHierarchy ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the hierarchical address of a host.  Not synchronized, so that
+     * it may be used on every packet.
+     *
+     * @param address The host's dense address.
+     * @return its hierarchical address; its dense address if it was given
+     *         none.
+     */
+    public static int hierarchical (int address) {
+
+	int[] assigned = hierarchicalAddresses;
+	return (address >= 0 && address < assigned.length
+		? assigned[address]
+		: address);
+
+    } // hierarchical ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The widths of the fields of a hierarchical address. */
+    public static final int AREA_BITS     = 16;
+    public static final int SUBNET_BITS   = 8;
+    public static final int HOST_BITS     = 8;
+
+    /** The lengths of the prefixes that name an area and a subnet. */
+    public static final int AREA_PREFIX   = AREA_BITS;
+    public static final int SUBNET_PREFIX = AREA_BITS + SUBNET_BITS;
+
+    /** The address of each hostname. */
+    private static final Map<String, Integer> addresses = new HashMap<String, Integer>();
+
+    /** The hostname of each address, indexed by address. */
+    private static final List<String>         hostnames = new ArrayList<String>();
+
+    /**
+     * The hierarchical address of each host, indexed by address.  Replaced
+     * whole, never modified.
+     */
+    private static volatile int[]             hierarchicalAddresses = new int[0];
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class AddressRegistry
+// =============================================================================
@@ -0,0 +1,297 @@
+// =============================================================================
+/**
+ * A first-in, first-out buffer of bytes, held unboxed in a circular array that
+ * grows as needed.  Bytes may be examined at any offset from the front without
+ * being removed, and a run of them removed from the front as an array with at
+ * most two bulk copies, so that a packet can be found and extracted in time
+ * proportional to the packet, not to everything buffered behind it.
+ *
+ * Not thread-safe: each buffer belongs to one host's event loop.
+ *
+ * @file   ByteRing.java
+ * @date   October 2026
+ */
+public class ByteRing {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create an empty buffer.
+     */
+    public ByteRing () {
+
+	buffer = new byte[INITIAL_CAPACITY];
+	head   = 0;
+	size   = 0;
+
+    } // ByteRing ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append bytes to the back of the buffer.
+     *
+     * @param data The bytes to append.
+     */
+    public void add (byte[] data) {
+
+	add(data, 0, data.length);
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Append part of an array of bytes to the back of the buffer.
+     *
+     * @param data   The array holding the bytes to append.
+     * @param offset The position of the first byte to append.
+     * @param length The number of bytes to append.
+     */
+    public void add (byte[] data, int offset, int length) {
+
+	ensureCapacity(size + length);
+
+	// Copy up to the end of the array, then wrap around.
+	int tail  = (head + size) & (buffer.length - 1);
+	int first = Math.min(length, buffer.length - tail);
+	System.arraycopy(data, offset, buffer, tail, first);
+	System.arraycopy(data, offset + first, buffer, 0, length - first);
+	size += length;
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Examine a byte without removing it.
+     *
+     * @param offset The position of the byte from the front of the buffer.
+     * @return the byte.
+     * @throws IndexOutOfBoundsException if fewer bytes are buffered.
+     */
+    public byte peek (int offset) {
+
+	if (offset < 0 || offset >= size) {
+	    throw new IndexOutOfBoundsException("Offset " + offset +
+						" in buffer of " + size);
+	}
+	return buffer[(head + offset) & (buffer.length - 1)];
+
+    } // peek ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Examine four bytes, most significant first, as an int without removing
+     * them.
+     *
+     * @param offset The position of the first byte from the front.
+     * @return the int value.
+     * @throws IndexOutOfBoundsException if fewer bytes are buffered.
+     */
+    public int peekInt (int offset) {
+
+	return ((peek(offset)     & 0xff) << 24 |
+		(peek(offset + 1) & 0xff) << 16 |
+		(peek(offset + 2) & 0xff) << 8  |
+		(peek(offset + 3) & 0xff));
+
+    } // peekInt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Copy bytes into part of an array without removing them.
+     *
+     * @param offset            The position of the first byte from the front.
+     * @param destination       The array to fill.
+     * @param destinationOffset The position in the array of the first byte.
+     * @param length            The number of bytes to copy.
+     * @throws IndexOutOfBoundsException if fewer bytes are buffered.
+     */
+    public void peek (int offset, byte[] destination, int destinationOffset, int length) {
+
+	if (offset < 0 || length < 0 || offset + length > size) {
+	    throw new IndexOutOfBoundsException("Copying " + length + " from " + offset +
+						" in buffer of " + size);
+	}
+
+	int start = (head + offset) & (buffer.length - 1);
+	int first = Math.min(length, buffer.length - start);
+	System.arraycopy(buffer, start, destination, destinationOffset, first);
+	System.arraycopy(buffer, 0, destination, destinationOffset + first, length - first);
+
+    } // peek ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove bytes from the front of the buffer, returning them.
+     *
+     * @param length The number of bytes to remove.
+     * @return the removed bytes, in order.
+     * @throws IndexOutOfBoundsException if fewer bytes are buffered.
+     */
+    public byte[] remove (int length) {
+
+	byte[] slice = new byte[Math.max(length, 0)];
+	remove(slice, 0, length);
+
+	return slice;
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove bytes from the front of the buffer into part of an array.
+     *
+     * @param destination The array to fill.
+     * @param offset      The position in the array of the first byte.
+     * @param length      The number of bytes to remove.
+     * @throws IndexOutOfBoundsException if fewer bytes are buffered.
+     */
+    public void remove (byte[] destination, int offset, int length) {
+
+	if (length < 0 || length > size) {
+	    throw new IndexOutOfBoundsException("Removing " + length +
+						" from buffer of " + size);
+	}
+
+	int first = Math.min(length, buffer.length - head);
+	System.arraycopy(buffer, head, destination, offset, first);
+	System.arraycopy(buffer, 0, destination, offset + first, length - first);
+	skip(length);
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Discard bytes from the front of the buffer.
+     *
+     * @param length The number of bytes to discard; at most the size.
+     */
+    public void skip (int length) {
+
+	length = Math.min(length, size);
+	head   = (head + length) & (buffer.length - 1);
+	size  -= length;
+
+    } // skip ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Discard everything buffered.
+     */
+    public void clear () {
+
+	head = 0;
+	size = 0;
+
+    } // clear ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of bytes buffered.
+     *
+     * @return the size.
+     */
+    public int size () {
+
+	return size;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Grow the array, if needed, to a power of two that holds the given
+     * number of bytes, moving the contents to its start.
+     */
+    private void ensureCapacity (int capacity) {
+
+	if (capacity <= buffer.length) {
+	    return;
+	}
+
+	int newLength = buffer.length;
+	while (newLength < capacity) {
+	    newLength *= 2;
+	}
+	byte[] grown = new byte[newLength];
+	int    first = Math.min(size, buffer.length - head);
+	System.arraycopy(buffer, head, grown, 0, first);
+	System.arraycopy(buffer, 0, grown, first, size - first);
+	buffer = grown;
+	head   = 0;
+
+    } // ensureCapacity ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The circular array; its length is always a power of two. */
+    private byte[] buffer;
+
+    /** The index of the front byte, and the number of bytes buffered. */
+    private int    head;
+    private int    size;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The initial length of the array; a power of two. */
+    private static final int INITIAL_CAPACITY = 256;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ByteRing
+// =============================================================================
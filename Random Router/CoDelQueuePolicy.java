@@ -0,0 +1,125 @@
+// =============================================================================
+/**
+ * @file   CoDelQueuePolicy.java
+ * @date   October 2026
+ *
+ * Controlled Delay (CoDel): judge the queue by how long packets wait in it,
+ * not by how many bytes it holds.  Once every packet leaving for a whole
+ * <code>INTERVAL</code> has waited longer than <code>TARGET</code>, the queue
+ * is standing rather than absorbing a burst, so drop a departing packet, and
+ * then drop again at intervals that shrink with the square root of the
+ * number of drops, until a packet leaves having waited less than the target.
+ * Arrivals are dropped only when the queue is full.
+ *
+ * This follows RFC 8289, deciding one departing packet at a time.
+ */
+public class CoDelQueuePolicy extends QueuePolicy {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decide whether to drop a departing packet, by how long it waited.
+     *
+     * @param sojourn     How long the packet waited, in ns.
+     * @param queuedBytes The bytes still queued behind it.
+     * @param now         The current time, in ns.
+     * @return <code>true</code> to drop the packet; <code>false</code> to
+     *         send it.
+     */
+    public boolean dropOnDeparture (long sojourn, int queuedBytes, long now) {
+
+	// Has the delay stayed above target for a whole interval?  A queue
+	// holding no more than one packet is not standing, however long that
+	// packet waited.
+	boolean okToDrop = false;
+	if (sojourn < TARGET || queuedBytes <= MIN_BYTES) {
+	    firstAboveTime = 0;
+	} else if (firstAboveTime == 0) {
+	    firstAboveTime = now + INTERVAL;
+	} else if (now >= firstAboveTime) {
+	    okToDrop = true;
+	}
+
+	// While dropping, drop on schedule until the delay falls.
+	if (dropping) {
+	    if (!okToDrop) {
+		dropping = false;
+		return false;
+	    }
+	    if (now >= dropNext) {
+		count    += 1;
+		dropNext  = controlLaw(dropNext);
+		return true;
+	    }
+	    return false;
+	}
+
+	// Otherwise, start dropping.  If dropping stopped only recently, resume
+	// near the rate it had reached.
+	if (okToDrop) {
+	    dropping = true;
+	    int delta = count - lastCount;
+	    count     = (delta > 1 && now - dropNext < 16 * INTERVAL ? delta : 1);
+	    lastCount = count;
+	    dropNext  = controlLaw(now);
+	    return true;
+	}
+	return false;
+
+    } // dropOnDeparture ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the time of the next drop after one at the given time.
+     */
+    private long controlLaw (long time) {
+
+	return time + (long)(INTERVAL / Math.sqrt(count));
+
+    } // controlLaw ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** When the delay will have been above target for an interval; 0 if not above. */
+    private long    firstAboveTime = 0;
+
+    /** Whether in the dropping state, and when to drop next if so. */
+    private boolean dropping       = false;
+    private long    dropNext       = 0;
+
+    /** The drops since dropping began, and the count when it last began. */
+    private int     count          = 0;
+    private int     lastCount      = 0;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The acceptable standing delay, in ns; <code>-Dcodel.target=</code> ms. */
+    public static final long TARGET
+	= Long.getLong("codel.target", 5) * 1000000;
+
+    /** The time, in ns, over which delay must persist; <code>-Dcodel.interval=</code> ms. */
+    public static final long INTERVAL
+	= Long.getLong("codel.interval", 100) * 1000000;
+
+    /** The queue size, in bytes, at or below which nothing is dropped. */
+    private static final int MIN_BYTES = NetworkLayer.DEFAULT_MTU;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CoDelQueuePolicy
+// =============================================================================
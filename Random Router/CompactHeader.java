@@ -0,0 +1,383 @@
+// =============================================================================
+/**
+ * Encodes packet headers in a compact, variable-length form for the wire, and
+ * decodes them back into the fixed form that network layers work with.  The
+ * compact header is:
+ *
+ *     version/flags (1 byte) | data length (varint) | [destination (varint)] |
+ *     source (varint) | hop limit (1) |
+ *     [source port (varint) | destination port (varint)] |
+ *     [sequence (varint)] | [identification (2) | fragment offset (varint)]
+ *
+ * The top two bits of the first byte give the version, the next three are a
+ * flag and the traffic class, and the low three are flags.  The destination
+ * and sequence number are omitted from control packets, the ports from
+ * packets in a host's default flow, and the identification and fragment
+ * offset from packets that are not fragments.  A varint holds seven bits
+ * per byte, least significant first, with the high bit of each byte set if
+ * another follows.  Addresses are dense, so a small network's addresses fit
+ * in one byte.
+ *
+ * Both forms are written in place in the packet's array: the compact header
+ * ends where the fixed one does, immediately before the data, so converting
+ * either way moves no data.  A fixed header always begins with a zero byte
+ * (its length is less than 2^24), so a receiver may tell the two apart.
+ *
+ * @file   CompactHeader.java
+ * @date   October 2026
+ */
+public class CompactHeader {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Rewrite a packet's fixed header in compact form.
+     *
+     * @param packet The packet, with a fixed header.
+     * @return the offset at which the compact packet begins; 0 if the header
+     *         cannot be made smaller, in which case it is left fixed.
+     */
+    public static int encode (byte[] packet) {
+
+	int     dataLength   = packet.length - NetworkLayer.bytesPerHeader;
+	int     destination  = NetworkLayer.readInt(packet, NetworkLayer.destinationOffset);
+	int     source       = NetworkLayer.readInt(packet, NetworkLayer.sourceOffset);
+	byte    hopLimit     = packet[NetworkLayer.hopLimitOffset];
+	byte    idHigh       = packet[NetworkLayer.identificationOffset];
+	byte    idLow        = packet[NetworkLayer.identificationOffset + 1];
+	int     fragmentInfo = NetworkLayer.readInt(packet, NetworkLayer.fragmentOffset);
+	int     trafficClass = packet[NetworkLayer.trafficClassOffset];
+	int     sourcePort   = NetworkLayer.readShort(packet, NetworkLayer.sourcePortOffset);
+	int     destinationPort
+	    = NetworkLayer.readShort(packet, NetworkLayer.destinationPortOffset);
+	int     sequence     = NetworkLayer.readInt(packet, NetworkLayer.sequenceOffset);
+	boolean control      = (destination == NetworkLayer.CONTROL_ADDRESS);
+	boolean ports        = (sourcePort != 0 || destinationPort != 0);
+	boolean fragment     = (fragmentInfo != 0);
+	int     offset       = fragmentInfo & NetworkLayer.FRAGMENT_OFFSET_MASK;
+	if (source < 0 ||
+	    (destination < 0 && !control) ||
+	    sequence < 0 || (sequence != 0 && control) ||
+	    trafficClass < 0 || trafficClass > CLASS_MASK >> CLASS_SHIFT) {
+	    return 0;
+	}
+
+	// Find the size of the compact header, and place it to end where the
+	// fixed one does.
+	int size = (2 +
+		    varintSize(dataLength) +
+		    (control ? 0 : varintSize(destination) + varintSize(sequence)) +
+		    varintSize(source) +
+		    (ports ? varintSize(sourcePort) + varintSize(destinationPort) : 0) +
+		    (fragment ? 2 + varintSize(offset) : 0));
+	if (size >= NetworkLayer.bytesPerHeader) {
+	    return 0;
+	}
+	int start = NetworkLayer.bytesPerHeader - size;
+
+	// The fields have all been read, so they may now be overwritten.
+	int position = start;
+	packet[position++] = (byte)(VERSION |
+				    trafficClass << CLASS_SHIFT |
+				    (control  ? CONTROL_FLAG : 0) |
+				    (ports    ? PORTS_FLAG : 0) |
+				    (fragment ? FRAGMENT_FLAG : 0) |
+				    ((fragmentInfo & NetworkLayer.MORE_FRAGMENTS) != 0
+				     ? MORE_FRAGMENTS_FLAG
+				     : 0));
+	position = writeVarint(packet, position, dataLength);
+	if (!control) {
+	    position = writeVarint(packet, position, destination);
+	}
+	position = writeVarint(packet, position, source);
+	packet[position++] = hopLimit;
+	if (ports) {
+	    position = writeVarint(packet, position, sourcePort);
+	    position = writeVarint(packet, position, destinationPort);
+	}
+	if (!control) {
+	    position = writeVarint(packet, position, sequence);
+	}
+	if (fragment) {
+	    packet[position++] = idHigh;
+	    packet[position++] = idLow;
+	    position = writeVarint(packet, position, offset);
+	}
+
+	return start;
+
+    } // encode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Rewrite a packet's compact header in fixed form.  The fixed header
+     * occupies the start of the array, so the compact one must begin
+     * <code>bytesPerHeader</code> less its own size into it.
+     *
+     * @param packet The array holding the packet.
+     * @param start  The offset at which the compact header begins.
+     */
+    public static void decode (byte[] packet, int start) {
+
+	// Read every field before any is overwritten.  The data length is
+	// implied by the array's.
+	int  position    = start;
+	int  flags       = packet[position++];
+	long varint      = readVarint(packet, position);
+	position        += (int)(varint >>> 32);
+	int  destination = NetworkLayer.CONTROL_ADDRESS;
+	if ((flags & CONTROL_FLAG) == 0) {
+	    varint       = readVarint(packet, position);
+	    destination  = (int)varint;
+	    position    += (int)(varint >>> 32);
+	}
+	varint           = readVarint(packet, position);
+	int  source      = (int)varint;
+	position        += (int)(varint >>> 32);
+	byte hopLimit    = packet[position++];
+	int  sourcePort  = 0;
+	int  destinationPort = 0;
+	if ((flags & PORTS_FLAG) != 0) {
+	    varint           = readVarint(packet, position);
+	    sourcePort       = (int)varint;
+	    position        += (int)(varint >>> 32);
+	    varint           = readVarint(packet, position);
+	    destinationPort  = (int)varint;
+	    position        += (int)(varint >>> 32);
+	}
+	int  sequence    = 0;
+	if ((flags & CONTROL_FLAG) == 0) {
+	    varint       = readVarint(packet, position);
+	    sequence     = (int)varint;
+	    position    += (int)(varint >>> 32);
+	}
+	byte idHigh      = 0;
+	byte idLow       = 0;
+	int  fragmentInfo = 0;
+	if ((flags & FRAGMENT_FLAG) != 0) {
+	    idHigh       = packet[position++];
+	    idLow        = packet[position++];
+	    fragmentInfo = ((int)readVarint(packet, position) |
+			    ((flags & MORE_FRAGMENTS_FLAG) != 0
+			     ? NetworkLayer.MORE_FRAGMENTS
+			     : 0));
+	}
+
+	NetworkLayer.writeInt(packet, NetworkLayer.lengthOffset,      packet.length);
+	NetworkLayer.writeInt(packet, NetworkLayer.destinationOffset, destination);
+	NetworkLayer.writeInt(packet, NetworkLayer.sourceOffset,      source);
+	packet[NetworkLayer.hopLimitOffset]           = hopLimit;
+	packet[NetworkLayer.identificationOffset]     = idHigh;
+	packet[NetworkLayer.identificationOffset + 1] = idLow;
+	packet[NetworkLayer.trafficClassOffset]       = (byte)((flags & CLASS_MASK) >> CLASS_SHIFT);
+	NetworkLayer.writeShort(packet, NetworkLayer.sourcePortOffset,      sourcePort);
+	NetworkLayer.writeShort(packet, NetworkLayer.destinationPortOffset, destinationPort);
+	NetworkLayer.writeInt(packet,   NetworkLayer.sequenceOffset,        sequence);
+	NetworkLayer.writeInt(packet,   NetworkLayer.fragmentOffset,        fragmentInfo);
+
+    } // decode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine the size of the compact header at the front of a buffer.
+     *
+     * @param buffer The received bytes.
+     * @return the size of the header; 0 if it has not all arrived; -1 if it is
+     *         malformed.
+     */
+    public static int headerSize (ByteRing buffer) {
+
+	if (buffer.size() < 1) {
+	    return 0;
+	}
+	int flags = buffer.peek(0);
+	if ((flags & VERSION_MASK) != VERSION) {
+	    return -1;
+	}
+
+	// Step over the varints, and the fixed-size fields between them.
+	int  position = 1;
+	int  varints  = ((flags & CONTROL_FLAG) != 0 ? 2 : 3);
+	for (int i = 0; i < varints; i += 1) {
+	    long varint = peekVarint(buffer, position);
+	    if (varint <= 0) {
+		return (int)varint;
+	    }
+	    position += (int)(varint >>> 32);
+	}
+	position += 1;
+	varints   = (((flags & PORTS_FLAG)   != 0 ? 2 : 0) +
+		     ((flags & CONTROL_FLAG) == 0 ? 1 : 0));
+	for (int i = 0; i < varints; i += 1) {
+	    long varint = peekVarint(buffer, position);
+	    if (varint <= 0) {
+		return (int)varint;
+	    }
+	    position += (int)(varint >>> 32);
+	}
+	if ((flags & FRAGMENT_FLAG) != 0) {
+	    position += 2;
+	    long varint = peekVarint(buffer, position);
+	    if (varint <= 0) {
+		return (int)varint;
+	    }
+	    position += (int)(varint >>> 32);
+	}
+
+	return (position <= buffer.size() ? position : 0);
+
+    } // headerSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the data length given by the compact header at the front of a
+     * buffer, which must have arrived whole.
+     *
+     * @param buffer The received bytes.
+     * @return the number of data bytes that follow the header.
+     */
+    public static int dataLength (ByteRing buffer) {
+
+	return (int)peekVarint(buffer, 1);
+
+    } // dataLength ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of bytes needed to hold a value as a varint.
+     */
+    private static int varintSize (int value) {
+
+	int size = 1;
+	while ((value >>>= 7) != 0) {
+	    size += 1;
+	}
+	return size;
+
+    } // varintSize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write a value as a varint.
+     *
+     * @return the position following it.
+     */
+    private static int writeVarint (byte[] packet, int position, int value) {
+
+	while ((value & ~0x7f) != 0) {
+	    packet[position++] = (byte)((value & 0x7f) | 0x80);
+	    value >>>= 7;
+	}
+	packet[position++] = (byte)value;
+	return position;
+
+    } // writeVarint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a varint from an array.
+     *
+     * @return its size in the high 32 bits, and its value in the low 32.
+     */
+    private static long readVarint (byte[] packet, int position) {
+
+	int value = 0;
+	int size  = 0;
+	int b;
+	do {
+	    b      = packet[position + size];
+	    value |= (b & 0x7f) << (7 * size);
+	    size  += 1;
+	} while ((b & 0x80) != 0 && size < MAX_VARINT_SIZE);
+	return (long)size << 32 | (value & 0xffffffffL);
+
+    } // readVarint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read a varint from a buffer without removing it.
+     *
+     * @return its size in the high 32 bits, and its value in the low 32; 0 if
+     *         it has not all arrived; -1 if it is too long or negative.
+     */
+    private static long peekVarint (ByteRing buffer, int position) {
+
+	int value = 0;
+	for (int size = 0; size < MAX_VARINT_SIZE; size += 1) {
+	    if (position + size >= buffer.size()) {
+		return 0;
+	    }
+	    int b  = buffer.peek(position + size);
+	    value |= (b & 0x7f) << (7 * size);
+	    if ((b & 0x80) == 0) {
+		return (value < 0 ? -1 : (long)(size + 1) << 32 | value);
+	    }
+	}
+	return -1;
+
+    } // peekVarint ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The version bits of the first byte, and the version written. */
+    private static final int VERSION_MASK        = 0xc0;
+    private static final int VERSION             = 0x40;
+
+    /** The traffic class bits of the first byte. */
+    private static final int CLASS_MASK          = 0x18;
+    private static final int CLASS_SHIFT         = 3;
+
+    /** The flags of the first byte. */
+    private static final int PORTS_FLAG          = 0x20;
+    private static final int CONTROL_FLAG        = 0x01;
+    private static final int FRAGMENT_FLAG       = 0x02;
+    private static final int MORE_FRAGMENTS_FLAG = 0x04;
+
+    /** The most bytes that a varint may occupy. */
+    private static final int MAX_VARINT_SIZE     = 5;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class CompactHeader
+// =============================================================================
@@ -7,6 +7,11 @@ import java.util.Queue;
 import java.util.Iterator;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 // =============================================================================
 
 
@@ -102,12 +107,21 @@ public abstract class DataLinkLayer {
     public DataLinkLayer () {
 
 	// Create incoming buffer space.
-	bitBuffer     = new LinkedList<Boolean>();
+	bitBuffer     = 0;
+	bitCount      = 0;
 	receiveBuffer = new ConcurrentLinkedQueue<Byte>();
 	sendBuffer    = new ConcurrentLinkedQueue<Byte>();
 
 	// Its network layer will be registered later.
 	networkLayer = null;
+
+	// Reusable compression state, only needed if compressing.
+	if (compress) {
+	    deflater      = new Deflater(Deflater.BEST_SPEED, true);
+	    inflater      = new Inflater(true);
+	    payloadBuffer = new byte[MAX_PAYLOAD_SIZE + 1];
+	    codecBuffer   = new byte[MAX_PAYLOAD_SIZE + 1];
+	}
         
     } // DataLinkLayer ()
     // =========================================================================
@@ -136,6 +150,27 @@ public abstract class DataLinkLayer {
 
 
 
+    // =========================================================================
+    /**
+     * Name this link, as seen from its end, for reporting.  When compressing,
+     * its compression counters are registered under this name.
+     *
+     * @param name The name of the link.
+     */
+    public void setName (String name) {
+
+	this.name = name;
+	if (compress) {
+	    bitsSaved       = Statistics.counter("compression." + name + ".bitsSaved");
+	    compressNanos   = Statistics.counter("compression." + name + ".compressNs");
+	    decompressNanos = Statistics.counter("compression." + name + ".decompressNs");
+	}
+
+    } // setName ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Check the status of this connection.  If there is buffered data to send,
@@ -158,7 +193,11 @@ public abstract class DataLinkLayer {
 	// If there are received buffered bytes, try to process a frame.
 	if (receiveBuffer.peek() != null) {
 	    Queue<Byte> receivedFrame = processFrame();
+	    if (receivedFrame != null && compress) {
+		receivedFrame = decompressPayload(receivedFrame);
+	    }
 	    if (receivedFrame != null) {
+		framesReceived.increment();
 		finishFrameReceive(receivedFrame);
 	    }
 	}
@@ -195,12 +234,53 @@ public abstract class DataLinkLayer {
      */
     public void send (byte[] data) {
 
+	send(data, 0, (data == null ? 0 : data.length));
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send part of an array of bytes through the physical layer.
+     *
+     * @param data   The array holding the bytes to send.
+     * @param offset The position of the first byte to send.
+     * @param length The number of bytes to send.
+     */
+    public void send (byte[] data, int offset, int length) {
+
+	// If the buffer was drained, these bytes start a new pending frame; note
+	// when, so that an aggregated frame is not held back indefinitely.
+	if (sendBuffer.isEmpty()) {
+	    oldestPendingTime = System.currentTimeMillis();
+	}
+
 	// Add each byte to the sending buffer.
-	for (int i = 0; data != null && i < data.length; i += 1) {
+	for (int i = offset; i < offset + length; i += 1) {
 	    sendBuffer.add(data[i]);
 	}
+	bytesPending.addAndGet(length);
 	
-    }
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Whether this link wants more data to send: whether less than a frame's
+     * worth is waiting.  A sender that holds its own queue of data may use
+     * this to decide what to send at the last moment.
+     *
+     * @return <code>true</code> if a frame's worth of data is not yet waiting.
+     */
+    public boolean canAccept () {
+
+	return bytesPending.get() < (aggregate ? MAX_AGGREGATE_FRAME_SIZE : MAX_FRAME_SIZE);
+
+    } // canAccept ()
     // =========================================================================
 
 
@@ -208,28 +288,44 @@ public abstract class DataLinkLayer {
     // =========================================================================
     /**
      * Extract the next frame-worth of data from the sending buffer, frame it,
-     * and then send it.
+     * and then send it.  When aggregating, a partial frame is held back until
+     * either a whole aggregated frame's worth of data is buffered or the oldest
+     * buffered byte has waited for <code>AGGREGATE_DELAY</code> milliseconds.
      *
-     * @return the frame of bytes transmitted.
+     * @return the frame of bytes transmitted; <code>null</code> if no frame was
+     *         sent.
      */
     protected Queue<Byte> sendNextFrame () {
 
         if (sendBuffer.isEmpty()) {
             return null;
         }
+
+	// Determine how much data may go into this frame, and whether enough
+	// is buffered (or has waited long enough) to send it now.
+	int maxFrameSize = (aggregate ? MAX_AGGREGATE_FRAME_SIZE : MAX_FRAME_SIZE);
+	int buffered     = sendBuffer.size();
+	if (aggregate &&
+	    buffered < maxFrameSize &&
+	    System.currentTimeMillis() - oldestPendingTime < AGGREGATE_DELAY) {
+	    return null;
+	}
         
 	// Extract a frame-worth of data from the sending buffer.
-	int frameSize = ((sendBuffer.size() < MAX_FRAME_SIZE)
-			 ? sendBuffer.size()
-			 : MAX_FRAME_SIZE);
+	int frameSize = ((buffered < maxFrameSize) ? buffered : maxFrameSize);
 	Queue<Byte> data = new LinkedList<Byte>();
 	for (int j = 0; j < frameSize; j += 1) {
 	    data.add(sendBuffer.remove());
 	}
+	bytesPending.addAndGet(-frameSize);
+	if (compress) {
+	    data = compressPayload(data);
+	}
 
 	// Create a frame from the data and transmit it.
 	Queue<Byte> framedData = createFrame(data);
 	transmit(framedData);
+	framesSent.increment();
 
         return framedData;
 
@@ -238,6 +334,111 @@ public abstract class DataLinkLayer {
 
 
 
+    // =========================================================================
+    /**
+     * Prefix a frame's payload with a flag byte, compressing the payload if
+     * that makes it smaller.  Payloads too short to gain are sent as they are.
+     *
+     * @param data The payload to be framed.
+     * @return the flagged, possibly compressed, payload.
+     */
+    protected Queue<Byte> compressPayload (Queue<Byte> data) {
+
+	long start  = System.nanoTime();
+	int  length = 0;
+	for (byte b : data) {
+	    payloadBuffer[length++] = b;
+	}
+
+	// Deflate into less space than the flag byte would save; if it does
+	// not fit, compression does not help.
+	int compressedLength = 0;
+	if (length >= MIN_COMPRESS_SIZE) {
+	    deflater.setInput(payloadBuffer, 0, length);
+	    deflater.finish();
+	    compressedLength = deflater.deflate(codecBuffer, 0, length - 2);
+	    if (!deflater.finished()) {
+		compressedLength = 0;
+	    }
+	    deflater.reset();
+	}
+
+	Queue<Byte> payload = new LinkedList<Byte>();
+	if (compressedLength > 0) {
+	    payload.add(DEFLATED);
+	    for (int i = 0; i < compressedLength; i += 1) {
+		payload.add(codecBuffer[i]);
+	    }
+	} else {
+	    payload.add(RAW);
+	    payload.addAll(data);
+	}
+
+	bitsSaved.add((long)(length - payload.size()) * Byte.SIZE);
+	compressNanos.add(System.nanoTime() - start);
+	return payload;
+
+    } // compressPayload ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove the flag byte from a received payload, decompressing the rest if
+     * the flag says that it was compressed.
+     *
+     * @param payload The flagged payload extracted from a frame.
+     * @return the original payload; <code>null</code> if it cannot be
+     *         recovered, in which case the frame is dropped.
+     */
+    protected Queue<Byte> decompressPayload (Queue<Byte> payload) {
+
+	Byte flag = payload.poll();
+	if (flag != null && flag == RAW) {
+	    return payload;
+	}
+	if (flag == null || flag != DEFLATED || payload.size() > MAX_PAYLOAD_SIZE) {
+	    framesDropped.increment();
+	    return null;
+	}
+
+	long start  = System.nanoTime();
+	int  length = 0;
+	for (byte b : payload) {
+	    codecBuffer[length++] = b;
+	}
+
+	// A raw inflater may need a trailing byte beyond the compressed data.
+	codecBuffer[length++] = 0;
+	int rawLength = -1;
+	try {
+	    inflater.setInput(codecBuffer, 0, length);
+	    rawLength = inflater.inflate(payloadBuffer, 0, MAX_PAYLOAD_SIZE);
+	    if (!inflater.finished()) {
+		rawLength = -1;
+	    }
+	} catch (DataFormatException e) {
+	    rawLength = -1;
+	}
+	inflater.reset();
+	decompressNanos.add(System.nanoTime() - start);
+
+	if (rawLength < 0) {
+	    framesDropped.increment();
+	    return null;
+	}
+	Queue<Byte> data = new LinkedList<Byte>();
+	for (int i = 0; i < rawLength; i += 1) {
+	    data.add(payloadBuffer[i]);
+	}
+	return data;
+
+    } // decompressPayload ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Transmit a sequence of bytes as bits.
@@ -280,24 +481,20 @@ public abstract class DataLinkLayer {
      */
     public void receive () {
 
-        // Transfer any available bits in the physical layer into our buffer.
+        // Shift each available bit in the physical layer into the byte being
+        // built up, and with each whole byte, add it to the byte buffer.
         Boolean bit = null;
         while ((bit = physicalLayer.retrieve()) != null) {
-            bitBuffer.add(bit);
-        }
-
-	// If there are whole bytes of bits buffered, then transfer them to the
-	// byte buffer.
-	while (bitBuffer.size() >= Byte.SIZE) {
 
-	    // Build up one byte from the bits...
-	    byte newByte = 0;
-	    for (int i = 0; i < Byte.SIZE; i += 1) {
-		bit = bitBuffer.remove();
-		newByte = (byte)((newByte << 1) | (bit ? 1 : 0));
+	    bitBuffer  = (bitBuffer << 1) | (bit ? 1 : 0);
+	    bitCount  += 1;
+	    if (bitCount < Byte.SIZE) {
+		continue;
 	    }
 
-	    // ...and add it to the byte buffer.
+	    byte newByte = (byte)bitBuffer;
+	    bitBuffer    = 0;
+	    bitCount     = 0;
 	    receiveBuffer.add(newByte);
 	    if (debug) {
 		System.out.printf("DataLinkLayer.receive(): Got new byte = %c\n",
@@ -382,8 +579,12 @@ public abstract class DataLinkLayer {
     /** The network that is using this layer. */
     protected NetworkLayer   networkLayer;
 
-    /** The buffer of bits recently received, building up the current byte. */
-    protected Queue<Boolean> bitBuffer;
+    /**
+     * The bits recently received, building up the current byte, in its low
+     * bits, and how many there are.
+     */
+    protected int            bitBuffer;
+    protected int            bitCount;
 
     /** The buffer of bytes recently received, building up the current frame. */
     protected Queue<Byte>    receiveBuffer;
@@ -393,6 +594,30 @@ public abstract class DataLinkLayer {
 
     /** Whether to continue the event loop. */
     protected boolean        doEventLoop;
+
+    /** The number of bytes in the sending buffer. */
+    protected final AtomicInteger bytesPending = new AtomicInteger();
+
+    /** When the oldest byte in the sending buffer was buffered. */
+    protected volatile long  oldestPendingTime;
+
+    /** The name of this link, for reporting. */
+    protected String         name;
+
+    /** The reusable compressor and decompressor, and their working space. */
+    protected Deflater       deflater;
+    protected Inflater       inflater;
+    protected byte[]         payloadBuffer;
+    protected byte[]         codecBuffer;
+
+    /**
+     * The bits saved by compressing this link's payloads (net of the flag
+     * bytes), and the time spent compressing and decompressing them.  These
+     * are registered for reporting once the link is named.
+     */
+    protected LongAdder      bitsSaved       = new LongAdder();
+    protected LongAdder      compressNanos   = new LongAdder();
+    protected LongAdder      decompressNanos = new LongAdder();
     // =========================================================================
 
 
@@ -403,8 +628,50 @@ public abstract class DataLinkLayer {
     /** The maximum number of original data bytes that a frame may contain. */
     public static final int     MAX_FRAME_SIZE   = 8;
 
+    /**
+     * Whether to coalesce buffered packets into larger, aggregated frames.
+     * Enabled with <code>-Daggregate=true</code>.
+     */
+    public static final boolean aggregate        = Boolean.getBoolean("aggregate");
+
+    /** The maximum number of original data bytes in an aggregated frame. */
+    public static final int     MAX_AGGREGATE_FRAME_SIZE
+	= Integer.getInteger("aggregate.mtu", 256);
+
+    /** How long (in ms) a partial aggregated frame may wait to be filled. */
+    public static final long    AGGREGATE_DELAY  = Long.getLong("aggregate.delay", 5);
+
+    /**
+     * Whether to compress frame payloads, when doing so makes them smaller.
+     * Enabled with <code>-Dcompress=true</code>; most useful when aggregating.
+     */
+    public static final boolean compress         = Boolean.getBoolean("compress");
+
+    /** The shortest payload worth trying to compress. */
+    public static final int     MIN_COMPRESS_SIZE = 16;
+
+    /** The longest payload a frame may carry. */
+    public static final int     MAX_PAYLOAD_SIZE
+	= Math.max(MAX_FRAME_SIZE, MAX_AGGREGATE_FRAME_SIZE);
+
+    /** The flag bytes that mark a payload as sent raw or compressed. */
+    public static final byte    RAW              = 0;
+    public static final byte    DEFLATED         = 1;
+
     /** Whether to emit debugging information. */
     public static final boolean debug            = false;
+
+    /** Counts of frame events across all data link layers. */
+    protected static final LongAdder framesSent
+	= Statistics.counter("datalink.framesSent");
+    protected static final LongAdder framesReceived
+	= Statistics.counter("datalink.framesReceived");
+    protected static final LongAdder framesDropped
+	= Statistics.counter("datalink.framesDropped");
+    protected static final LongAdder resyncs
+	= Statistics.counter("datalink.resyncs");
+    protected static final LongAdder escapesAdded
+	= Statistics.counter("datalink.escapesAdded");
     // =========================================================================
 
 
@@ -0,0 +1,141 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayDeque;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   DeficitRoundRobinScheduler.java
+ * @date   October 2026
+ *
+ * Deficit Round Robin: the classes with packets waiting take turns, and on
+ * each turn a class is granted a quantum of bytes, in proportion to its
+ * weight, that it may spend sending packets.  What it does not spend carries
+ * over to its next turn, so over time each busy class gets its weighted share
+ * of the link's bytes whatever the sizes of its packets.
+ *
+ * Each operation takes constant time, so long as the quantum is at least the
+ * size of the largest packet; otherwise a large packet waits a few turns.
+ */
+public class DeficitRoundRobinScheduler extends PacketScheduler {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Create an empty queue per class.
+     */
+    public DeficitRoundRobinScheduler () {
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	ArrayDeque<QueuedPacket>[] queues = new ArrayDeque[NUM_CLASSES];
+	for (int c = 0; c < NUM_CLASSES; c += 1) {
+	    queues[c] = new ArrayDeque<QueuedPacket>();
+	}
+	this.queues  = queues;
+	this.deficit = new int[NUM_CLASSES];
+	this.active  = new ArrayDeque<Integer>();
+
+    } // DeficitRoundRobinScheduler ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hold a packet behind the others of its class, giving the class a turn
+     * if it had nothing waiting.
+     *
+     * @param queued The packet.
+     */
+    protected void add (QueuedPacket queued) {
+
+	ArrayDeque<QueuedPacket> queue = queues[queued.trafficClass];
+	if (queue.isEmpty()) {
+	    active.add(queued.trafficClass);
+	}
+	queue.add(queued);
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the next packet of the class whose turn it is, if its deficit
+     * covers it; otherwise pass the turn on.
+     *
+     * @return the packet.
+     */
+    protected QueuedPacket remove () {
+
+	while (true) {
+
+	    // Grant the class at the head its quantum as its turn begins.
+	    int c = active.peek();
+	    if (!turnGranted) {
+		deficit[c] += QUANTUM * WEIGHTS[c];
+		turnGranted = true;
+	    }
+
+	    ArrayDeque<QueuedPacket> queue  = queues[c];
+	    QueuedPacket             queued = queue.peek();
+	    if (queued.packet.length <= deficit[c]) {
+		deficit[c] -= queued.packet.length;
+		queue.poll();
+
+		// A class that empties gives up its turn and its deficit.
+		if (queue.isEmpty()) {
+		    active.poll();
+		    deficit[c]  = 0;
+		    turnGranted = false;
+		}
+		return queued;
+	    }
+
+	    // The class has spent its quantum; it waits for its next turn.
+	    active.add(active.poll());
+	    turnGranted = false;
+
+	}
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The packets of each class, in order of arrival. */
+    private final ArrayDeque<QueuedPacket>[] queues;
+
+    /** The bytes each class may yet send on its current or next turn. */
+    private final int[]                      deficit;
+
+    /** The classes with packets waiting, in turn order; the head's turn is now. */
+    private final ArrayDeque<Integer>        active;
+
+    /** Whether the class at the head has been granted its quantum this turn. */
+    private boolean                          turnGranted = false;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The bytes granted per turn to a class of weight 1. */
+    public static final int QUANTUM = Integer.getInteger("scheduler.quantum", 256);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class DeficitRoundRobinScheduler
+// =============================================================================
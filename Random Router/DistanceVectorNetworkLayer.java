@@ -0,0 +1,353 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   DistanceVectorNetworkLayer.java
+ * @date   October 2026
+ *
+ * A network layer that learns its routes by exchanging distance vectors with
+ * its neighbors (distributed Bellman-Ford).  Each host keeps the latest
+ * distance each neighbor has claimed to each destination, and routes through
+ * whichever neighbor minimizes the weight of the link to it plus its claimed
+ * distance.
+ *
+ * Updates are incremental: when routes change, only the changed entries are
+ * sent, batched at most every <code>UPDATE_INTERVAL</code> ms.  A full vector
+ * is sent only on start-up and, as a safety net against lost updates, every
+ * <code>REFRESH_INTERVAL</code> ms.  Each update is tailored to its neighbor
+ * with split horizon and poison reverse: a route that goes through a neighbor
+ * is advertised to that neighbor as unreachable.
+ *
+ * An update travels as a control packet, carrying:
+ *
+ *     type (1 byte) | count (4) | count x (destination (4) | distance (4))
+ */
+public class DistanceVectorNetworkLayer extends RoutingNetworkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Set up empty routing state.
+     */
+    public DistanceVectorNetworkLayer () {
+
+	vectors = new HashMap<Integer, Map<Integer, Integer>>();
+	routes  = new HashMap<Integer, Route>();
+	changed = new HashSet<Integer>();
+
+    } // DistanceVectorNetworkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in a distance vector update.
+     *
+     * @param dataLink The link on which the packet arrived.
+     * @param type     The type of control packet.
+     * @param packet   The whole packet, header included.
+     */
+    protected void processControl (DataLinkLayer dataLink,
+				   byte          type,
+				   byte[]        packet) {
+
+	if (type == UPDATE_TYPE) {
+	    receiveUpdate(packet);
+	}
+
+    } // processControl ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send an update when due: the whole vector on start-up and every
+     * <code>REFRESH_INTERVAL</code>, otherwise just the changed entries.  Then
+     * send any held packets that now have a route.
+     */
+    protected void checkTimeout () {
+
+	long now = System.currentTimeMillis();
+
+	if (now >= nextRefreshTime) {
+	    nextRefreshTime = now + REFRESH_INTERVAL;
+	    if (routes.isEmpty()) {
+		routes.put(address, new Route(0, address));
+	    }
+	    changed.addAll(routes.keySet());
+	}
+
+	if (!changed.isEmpty() && now - lastUpdateTime >= UPDATE_INTERVAL) {
+	    lastUpdateTime = now;
+	    sendUpdates();
+	}
+
+	super.checkTimeout();
+
+    } // checkTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in a neighbor's update, recording its claimed distances and
+     * reconsidering the route to each destination it mentions.
+     *
+     * @param packet The control packet holding the update.
+     */
+    private void receiveUpdate (byte[] packet) {
+
+	updatesReceived.increment();
+
+	// Ignore anything malformed, or not from a neighbor.
+	int     base     = bytesPerHeader;
+	int     neighbor = readInt(packet, sourceOffset);
+	Integer weight   = linkWeights.get(neighbor);
+	if (weight == null || packet.length < base + updateHeaderSize) {
+	    return;
+	}
+	int count = readInt(packet, base + updateCountOffset);
+	if (count < 0 ||
+	    count > (packet.length - base - updateHeaderSize) / updateEntrySize) {
+	    return;
+	}
+
+	Map<Integer, Integer> vector = vectors.get(neighbor);
+	if (vector == null) {
+	    vector = new HashMap<Integer, Integer>();
+	    vectors.put(neighbor, vector);
+	}
+	for (int i = 0; i < count; i += 1) {
+	    int offset      = base + updateHeaderSize + i * updateEntrySize;
+	    int destination = readInt(packet, offset);
+	    int distance    = readInt(packet, offset + Integer.BYTES);
+	    if (distance < 0 || distance >= INFINITY) {
+		vector.remove(destination);
+	    } else {
+		vector.put(destination, distance);
+	    }
+	    reconsider(destination);
+	}
+
+    } // receiveUpdate ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the best route to a destination from the neighbors' claims,
+     * noting it as changed if it differs from the current one.
+     *
+     * @param destination The destination address.
+     */
+    private void reconsider (int destination) {
+
+	if (destination == address) {
+	    return;
+	}
+
+	int bestDistance = INFINITY;
+	int bestHop      = 0;
+	for (Map.Entry<Integer, Map<Integer, Integer>> entry : vectors.entrySet()) {
+	    Integer claimed = entry.getValue().get(destination);
+	    if (claimed == null) {
+		continue;
+	    }
+	    long distance = (long)linkWeights.get(entry.getKey()) + claimed;
+	    if (distance < bestDistance) {
+		bestDistance = (int)distance;
+		bestHop      = entry.getKey();
+	    }
+	}
+
+	// An unreachable destination keeps an entry, so that the change is
+	// advertised, until the next update is sent.
+	Route current = routes.get(destination);
+	if (current == null && bestDistance == INFINITY) {
+	    return;
+	}
+	if (current == null ||
+	    current.distance != bestDistance ||
+	    current.nextHop  != bestHop) {
+	    routes.put(destination, new Route(bestDistance, bestHop));
+	    changed.add(destination);
+	}
+
+    } // reconsider ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send each neighbor the changed entries, poisoning those routed through
+     * it; then forget unreachable destinations and install the new routes.
+     */
+    private void sendUpdates () {
+
+	for (Map.Entry<Integer, DataLinkLayer> link : dataLinkLayers.entrySet()) {
+
+	    int               neighbor  = link.getKey();
+	    int               remaining = changed.size();
+	    int               entries   = 0;
+	    int               count     = 0;
+	    byte[]            payload   = null;
+	    Iterator<Integer> i         = changed.iterator();
+	    while (i.hasNext()) {
+
+		// Start a new update as needed.
+		if (payload == null) {
+		    entries    = Math.min(remaining, MAX_UPDATE_ENTRIES);
+		    remaining -= entries;
+		    payload    = new byte[updateHeaderSize + entries * updateEntrySize];
+		    payload[0] = UPDATE_TYPE;
+		    copyInto(payload, updateCountOffset, intToBytes(entries));
+		    count      = 0;
+		}
+
+		int   destination = i.next();
+		Route route       = routes.get(destination);
+		int   distance    = (route.nextHop == neighbor && destination != address
+				     ? INFINITY
+				     : route.distance);
+		int   offset      = updateHeaderSize + count * updateEntrySize;
+		copyInto(payload, offset,                 intToBytes(destination));
+		copyInto(payload, offset + Integer.BYTES, intToBytes(distance));
+		count += 1;
+
+		// Send each update as it fills.
+		if (count == entries) {
+		    transmit(link.getValue(), buildPacket(CONTROL_ADDRESS, payload));
+		    updatesSent.increment();
+		    entriesSent.add(count);
+		    payload = null;
+		}
+
+	    }
+
+	}
+
+	// The changes are sent; unreachable destinations need no more
+	// advertising.
+	routes.values().removeIf(route -> route.distance >= INFINITY);
+	changed.clear();
+
+	DataLinkLayer[] table = new DataLinkLayer[AddressRegistry.size()];
+	for (Map.Entry<Integer, Route> entry : routes.entrySet()) {
+	    int destination = entry.getKey();
+	    if (destination != address && destination >= 0 && destination < table.length) {
+		table[destination] = neighborLink(entry.getValue().nextHop);
+	    }
+	}
+	installRoutes(table);
+
+    } // sendUpdates ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The chosen route to a destination.
+     */
+    private static class Route {
+
+	Route (int distance, int nextHop) {
+	    this.distance = distance;
+	    this.nextHop  = nextHop;
+	}
+
+	final int distance;
+	final int nextHop;
+
+    } // class Route
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The distances last claimed by each neighbor, keyed by its address. */
+    private Map<Integer, Map<Integer, Integer>> vectors;
+
+    /** The chosen route to each destination, keyed by its address. */
+    private Map<Integer, Route> routes;
+
+    /** The destinations whose routes have changed since the last update. */
+    private Set<Integer> changed;
+
+    /** When the next full update is due, and when the last update was sent. */
+    private long nextRefreshTime = 0;
+    private long lastUpdateTime  = 0;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The control packet type of a distance vector update. */
+    public static final byte UPDATE_TYPE = 2;
+
+    /** The distance that stands for unreachable. */
+    public static final int  INFINITY    = 1 << 24;
+
+    /** Offsets into an update, and the sizes of its header and of each entry. */
+    private static final int updateCountOffset = 1;
+    private static final int updateHeaderSize  = updateCountOffset + Integer.BYTES;
+    private static final int updateEntrySize   = 2 * Integer.BYTES;
+
+    /** The most entries carried by one update packet. */
+    public static final int  MAX_UPDATE_ENTRIES = 64;
+
+    /** The least time (in ms) between updates. */
+    public static final long UPDATE_INTERVAL    = 10;
+
+    /** How often (in ms) the whole vector is sent regardless of changes. */
+    public static final long REFRESH_INTERVAL
+	= Long.getLong("distancevector.refresh", 30000);
+
+    /** Counts of routing events across all distance vector network layers. */
+    private static final LongAdder updatesSent
+	= Statistics.counter("distancevector.updatesSent");
+    private static final LongAdder entriesSent
+	= Statistics.counter("distancevector.entriesSent");
+    private static final LongAdder updatesReceived
+	= Statistics.counter("distancevector.updatesReceived");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class DistanceVectorNetworkLayer
+// =============================================================================
@@ -0,0 +1,17 @@
+// =============================================================================
+/**
+ * @file   DropTailQueuePolicy.java
+ * @date   October 2026
+ *
+ * Drop-tail: admit every packet that fits within the queue's limit, and drop
+ * those that arrive once it is full.  A full queue stays full, so a congested
+ * link shows latency up to the limit's worth of bytes before any drop.
+ */
+public class DropTailQueuePolicy extends QueuePolicy {
+// =============================================================================
+
+
+
+// =============================================================================
+} // class DropTailQueuePolicy
+// =============================================================================
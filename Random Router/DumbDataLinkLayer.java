@@ -46,6 +46,7 @@ public class DumbDataLinkLayer extends DataLinkLayer {
 		(currentByte == escapeTag)) {
 
 		framingData.add(escapeTag);
+		escapesAdded.increment();
 
 	    }
 
@@ -126,6 +127,7 @@ public class DumbDataLinkLayer extends DataLinkLayer {
 		cleanBufferUpTo(index - 1);
                 index = 1;
 		extractedBytes = new LinkedList<Byte>();
+		resyncs.increment();
 	    } else {
 		extractedBytes.add(current);
 	    }
@@ -174,13 +176,17 @@ public class DumbDataLinkLayer extends DataLinkLayer {
      */
     protected void finishFrameReceive (Queue<Byte> frame) {
 
-        // Deliver frame to the client.
-        byte[] deliverable = new byte[frame.size()];
-        for (int i = 0; i < deliverable.length; i += 1) {
+        // Deliver frame to the client, unpacked into an array kept for the
+        // purpose, which the network layer copies from.
+        int length = frame.size();
+        if (length > deliverable.length) {
+            deliverable = new byte[Math.max(length, 2 * deliverable.length)];
+        }
+        for (int i = 0; i < length; i += 1) {
             deliverable[i] = frame.remove();
         }
 
-        networkLayer.receive(this, deliverable);
+        networkLayer.receive(this, deliverable, 0, length);
         
     } // finishFrameReceive ()
     // =========================================================================
@@ -231,6 +237,9 @@ public class DumbDataLinkLayer extends DataLinkLayer {
 
     /** The escape tag. */
     private final byte escapeTag = (byte)'\\';
+
+    /** The array into which each received frame is unpacked; grown as needed. */
+    private byte[]     deliverable = new byte[256];
     // =========================================================================
 
 
@@ -0,0 +1,63 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayDeque;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   FifoScheduler.java
+ * @date   October 2026
+ *
+ * Sends packets in the order they arrived, whatever their class, as a link did
+ * before packets were scheduled.
+ */
+public class FifoScheduler extends PacketScheduler {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hold a packet behind all others.
+     *
+     * @param queued The packet.
+     */
+    protected void add (QueuedPacket queued) {
+
+	queue.add(queued);
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the packet that arrived first.
+     *
+     * @return the packet.
+     */
+    protected QueuedPacket remove () {
+
+	return queue.poll();
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The packets, in order of arrival. */
+    private final ArrayDeque<QueuedPacket> queue = new ArrayDeque<QueuedPacket>();
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FifoScheduler
+// =============================================================================
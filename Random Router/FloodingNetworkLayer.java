@@ -0,0 +1,333 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   FloodingNetworkLayer.java
+ * @date   October 2026
+ *
+ * A network layer that keeps no routes: each packet is sent on every link,
+ * and each host passes it on along every link but the one on which it
+ * arrived, until it reaches its destination or its hop limit.  Every path is
+ * thus tried at once, so a packet arrives by the quickest one, at the cost of
+ * a copy on every link.
+ *
+ * Each host suppresses the copies it has already seen, by the source and
+ * identification in their headers.  For each source, it keeps a sliding
+ * window of the last <code>WINDOW</code> identifications, as a bitmap ending
+ * at the highest seen; a newer identification slides the window forward, and
+ * one older than the window is taken as a duplicate.  A fragmented packet is
+ * reassembled at each host it passes, so that its fragments, which share an
+ * identification, are not mistaken for duplicates.
+ */
+public class FloodingNetworkLayer extends NetworkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Start with no packets seen.
+     */
+    public FloodingNetworkLayer () {
+
+	highest = new int[0];
+	seen    = new long[0][];
+
+    } // FloodingNetworkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the link that leads directly to a destination, if any.  Packets
+     * are sent by flooding, not by this route.
+     *
+     * @param destination The address to which a packet is being sent.
+     * @return the link; <code>null</code> if the host is not a neighbor.
+     */
+    protected DataLinkLayer route (int destination) {
+
+	return neighborLink(destination);
+
+    } // route ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a packet from this host on every link.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @param packet      The packet.
+     */
+    protected void sendPacket (int destination, byte[] packet) {
+
+	flood(null, packet);
+
+    } // sendPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Given a received packet, process it.  This layer needs the link on which
+     * packets arrive, so packets without one are ignored.
+     *
+     * @param packet The received packet to process.
+     */
+    protected void processPacket (byte[] packet) {
+
+	// Nothing to do here: packets are processed, with the link on which
+	// they arrived, by processPacket(DataLinkLayer, byte[]).
+
+    } // processPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Given a packet received on a link, process it.  Discard a copy already
+     * seen; deliver a packet destined for this host; pass any other on.
+     *
+     * @param dataLink The link on which the packet arrived.
+     * @param packet   The received packet to process.
+     */
+    protected void processPacket (DataLinkLayer dataLink, byte[] packet) {
+
+	int source         = readInt(packet, sourceOffset);
+	int identification = readShort(packet, identificationOffset);
+	if (source == address || !firstSighting(source, identification)) {
+	    duplicatesSuppressed.increment();
+	    return;
+	}
+
+	int destination = readInt(packet, destinationOffset);
+	if (destination == address) {
+	    deliver(packet);
+	    return;
+	}
+
+	int hopLimit = (packet[hopLimitOffset] & 0xff) - 1;
+	if (hopLimit <= 0) {
+	    packetsExpired.increment();
+	    return;
+	}
+	packet[hopLimitOffset] = (byte)hopLimit;
+	flood(dataLink, packet);
+	packetsForwarded.increment();
+
+    } // processPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Reassemble the fragments of every packet, so that each is seen whole.
+     *
+     * @param destination The address to which the packets are sent.
+     * @return <code>true</code>.
+     */
+    protected boolean collectsFragments (int destination) {
+
+	return true;
+
+    } // collectsFragments ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a packet on every link except one, copying it for all but the
+     * last.
+     *
+     * @param except The link not to send on; <code>null</code> to send on all.
+     * @param packet The packet.
+     */
+    private void flood (DataLinkLayer except, byte[] packet) {
+
+	DataLinkLayer last = null;
+	for (DataLinkLayer dataLink : dataLinkLayers.values()) {
+	    if (dataLink == except) {
+		continue;
+	    }
+	    if (last != null) {
+		transmit(last, packet.clone());
+		copiesSent.increment();
+	    }
+	    last = dataLink;
+	}
+	if (last != null) {
+	    transmit(last, packet);
+	    copiesSent.increment();
+	}
+
+    } // flood ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record that a packet has been seen, unless it already had been.
+     *
+     * @param source         The address of the packet's source.
+     * @param identification Its identification.
+     * @return <code>true</code> if it had not been seen.
+     */
+    private boolean firstSighting (int source, int identification) {
+
+	if (source < 0) {
+	    return false;
+	}
+	if (source >= seen.length) {
+	    int length = Math.max(source + 1, AddressRegistry.size());
+	    highest    = Arrays.copyOf(highest, length);
+	    seen       = Arrays.copyOf(seen, length);
+	}
+
+	// The first packet from a source starts its window.
+	long[] window = seen[source];
+	if (window == null) {
+	    window          = new long[WINDOW / Long.SIZE];
+	    seen[source]    = window;
+	    highest[source] = identification;
+	    mark(window, identification);
+	    return true;
+	}
+
+	// A newer identification slides the window forward, clearing the
+	// identifications it passes over.
+	int ahead = (short)(identification - highest[source]);
+	if (ahead > 0) {
+	    if (ahead >= WINDOW) {
+		Arrays.fill(window, 0);
+	    } else {
+		for (int i = 1; i < ahead; i += 1) {
+		    clear(window, highest[source] + i);
+		}
+	    }
+	    highest[source] = identification;
+	    mark(window, identification);
+	    return true;
+	}
+
+	// An older one is new only if it is within the window and unmarked.
+	if (-ahead >= WINDOW || isMarked(window, identification)) {
+	    return false;
+	}
+	mark(window, identification);
+	return true;
+
+    } // firstSighting ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Mark an identification as seen in a window.
+     */
+    private static void mark (long[] window, int identification) {
+
+	int bit = identification & (WINDOW - 1);
+	window[bit >>> 6] |= 1L << bit;
+
+    } // mark ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Mark an identification as not seen in a window.
+     */
+    private static void clear (long[] window, int identification) {
+
+	int bit = identification & (WINDOW - 1);
+	window[bit >>> 6] &= ~(1L << bit);
+
+    } // clear ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether an identification is marked as seen in a window.
+     */
+    private static boolean isMarked (long[] window, int identification) {
+
+	int bit = identification & (WINDOW - 1);
+	return (window[bit >>> 6] & 1L << bit) != 0;
+
+    } // isMarked ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The highest identification seen from each source, by address. */
+    private int[]    highest;
+
+    /**
+     * The window of identifications seen from each source, by address;
+     * <code>null</code> until one is.
+     */
+    private long[][] seen;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /**
+     * The number of identifications remembered per source, set with
+     * <code>-Dflooding.window=</code> and rounded up to a power of two from
+     * 64 to 16384.
+     */
+    public static final int WINDOW
+	= Math.max(Long.SIZE,
+		   Math.min(1 << 14,
+			    Integer.highestOneBit(Math.max(1, Integer.getInteger("flooding.window",
+										  1024) - 1)) << 1));
+
+    /** Counts of flooding events across all flooding network layers. */
+    private static final LongAdder copiesSent
+	= Statistics.counter("flooding.copiesSent");
+    private static final LongAdder duplicatesSuppressed
+	= Statistics.counter("flooding.duplicatesSuppressed");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FloodingNetworkLayer
+// =============================================================================
@@ -0,0 +1,259 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Drive many concurrent flows through one simulated network.  Each flow sends
+ * its own random data, from a port of one randomly chosen host to a port of
+ * another, all starting at once.  The receiving hosts are polled until every
+ * flow has arrived or time runs out; then each flow's data is verified and
+ * its completion time and throughput, from the start to the arrival of its
+ * last byte (to within the polling interval), reported.
+ *
+ * Run as <code>java FlowSimulator &lt;medium type&gt; &lt;data link layer
+ * type&gt; &lt;network layer type&gt; &lt;links file&gt; &lt;flows&gt;
+ * &lt;bytes per flow&gt; [seconds]</code>.
+ *
+ * @file   FlowSimulator.java
+ * @date   October 2026
+ */
+public class FlowSimulator extends Simulator {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The entry point.  Interpret the command-line arguments, aborting if they
+     * are invalid.  Set up the layers and run the flows.
+     *
+     * @param args The command-line arguments.
+     */
+    public static void main (String[] args) {
+
+	// Check the number of arguments passed.
+	if (args.length != 6 && args.length != 7) {
+
+	    System.err.print("Usage: java FlowSimulator <medium type>\n"          +
+			     "                          <data link layer type>\n" +
+			     "                          <network layer type>\n"   +
+			     "                          <links file>\n"           +
+			     "                          <flows>\n"                +
+			     "                          <bytes per flow>\n"       +
+			     "                          [seconds]\n");
+	    System.exit(1);
+
+	}
+
+	// Assign names to the arguments.
+	String mediumType        = args[0];
+	String dataLinkLayerType = args[1];
+	String networkLayerType  = args[2];
+	String linksPath         = args[3];
+	int    flowCount         = Integer.parseInt(args[4]);
+	int    bytesPerFlow      = Integer.parseInt(args[5]);
+	long   seconds           = (args.length > 6 ? Long.parseLong(args[6]) : 30);
+	if (flowCount < 1 || flowCount > NetworkLayer.MAX_PORT - FIRST_PORT + 1) {
+	    throw new RuntimeException("Invalid number of flows " + flowCount);
+	}
+
+	// Create the network of hosts and described by the links file.
+	Map<String, Host> hosts = construct(linksPath,
+					    mediumType,
+					    dataLinkLayerType,
+					    networkLayerType);
+	if (hosts.size() < 2) {
+	    throw new RuntimeException("At least two hosts are needed");
+	}
+
+	// Choose the flows.  Each has its own port at either end.
+	List<String> hostnames = new ArrayList<String>(hosts.keySet());
+	Collections.sort(hostnames);
+	Random random = new Random(1);
+	Flow[] flows  = new Flow[flowCount];
+	for (int i = 0; i < flowCount; i += 1) {
+	    String source      = hostnames.get(random.nextInt(hostnames.size()));
+	    String destination = source;
+	    while (destination.equals(source)) {
+		destination = hostnames.get(random.nextInt(hostnames.size()));
+	    }
+	    byte[] data = new byte[bytesPerFlow];
+	    random.nextBytes(data);
+	    flows[i] = new Flow(source, FIRST_PORT + i, destination, FIRST_PORT + i, data);
+	}
+
+	simulate(hosts, flows, seconds * 1000000000L);
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Start every flow at once, collect what arrives until all are complete
+     * or the time is up, and report.
+     *
+     * @param hosts   The map of hostnames to Hosts in the network.
+     * @param flows   The flows to run.
+     * @param timeout The longest to wait, in ns.
+     */
+    private static void simulate (Map<String, Host> hosts, Flow[] flows, long timeout) {
+
+        // Create the hosts as independent threads to perform communications.
+	for (Host host : hosts.values()) {
+	    new Thread(host).start();
+	}
+
+	long start = System.nanoTime();
+	for (Flow flow : flows) {
+	    hosts.get(flow.source).send(flow.destination,
+					flow.sourcePort,
+					flow.destinationPort,
+					flow.data);
+	}
+
+	// Poll each incomplete flow's receiver.
+	int  complete = 0;
+	long now      = start;
+	while (complete < flows.length && now - start < timeout) {
+	    try {
+		Thread.sleep(POLL_MS);
+	    } catch (InterruptedException e) {}
+	    now = System.nanoTime();
+	    for (Flow flow : flows) {
+		if (flow.finishTime != 0) {
+		    continue;
+		}
+		byte[] data = hosts.get(flow.destination).retrieve(flow.source,
+								   flow.sourcePort,
+								   flow.destinationPort);
+		flow.receive(data);
+		if (flow.receivedLength >= flow.data.length) {
+		    flow.finishTime = now;
+		    complete       += 1;
+		}
+	    }
+	}
+
+        // Stop every host, then report each flow and summarize the run.
+	for (Host host : hosts.values()) {
+	    host.stop();
+	}
+
+	int      matches    = 0;
+	long     totalBytes = 0;
+	double[] rates      = new double[flows.length];
+	double[] times      = new double[flows.length];
+	for (int i = 0; i < flows.length; i += 1) {
+	    Flow    flow  = flows[i];
+	    boolean match = flow.matches();
+	    long    end   = (flow.finishTime != 0 ? flow.finishTime : now);
+	    rates[i]      = flow.receivedLength * 1e9 / Math.max(1, end - start);
+	    times[i]      = (end - start) / 1e6;
+	    totalBytes   += flow.receivedLength;
+	    matches      += (match ? 1 : 0);
+	    System.out.printf("%s:%d -> %s:%d  %8d / %8d bytes  %9.1f ms  %10.0f B/s  %s\n",
+			      flow.source,
+			      flow.sourcePort,
+			      flow.destination,
+			      flow.destinationPort,
+			      flow.receivedLength,
+			      flow.data.length,
+			      times[i],
+			      rates[i],
+			      (match ? "match" : "mismatch"));
+	}
+
+	Arrays.sort(rates);
+	Arrays.sort(times);
+	System.out.printf("Flows matched:  %d of %d\n", matches, flows.length);
+	System.out.printf("Per-flow throughput (B/s):  min %.0f  median %.0f  max %.0f\n",
+			  rates[0],
+			  rates[rates.length / 2],
+			  rates[rates.length - 1]);
+	System.out.printf("Per-flow completion (ms):  min %.1f  median %.1f  max %.1f\n",
+			  times[0],
+			  times[times.length / 2],
+			  times[times.length - 1]);
+	System.out.printf("Aggregate throughput:  %.0f B/s\n",
+			  totalBytes * 1e9 / Math.max(1, now - start));
+	Statistics.print();
+
+    } // simulate ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * One flow: what it sends, and what has arrived.
+     */
+    private static class Flow {
+
+	Flow (String source,
+	      int    sourcePort,
+	      String destination,
+	      int    destinationPort,
+	      byte[] data) {
+	    this.source          = source;
+	    this.sourcePort      = sourcePort;
+	    this.destination     = destination;
+	    this.destinationPort = destinationPort;
+	    this.data            = data;
+	    this.received        = new byte[data.length];
+	}
+
+	/** Keep newly arrived bytes, ignoring any beyond what was sent. */
+	void receive (byte[] bytes) {
+	    int length = Math.min(bytes.length, received.length - receivedLength);
+	    System.arraycopy(bytes, 0, received, receivedLength, length);
+	    receivedLength += bytes.length;
+	}
+
+	/** Whether exactly the data sent has arrived. */
+	boolean matches () {
+	    return receivedLength == data.length && Arrays.equals(data, received);
+	}
+
+	final String source;
+	final int    sourcePort;
+	final String destination;
+	final int    destinationPort;
+	final byte[] data;
+	final byte[] received;
+	int          receivedLength = 0;
+
+	/** When the last byte arrived, in ns; 0 if it has not. */
+	long         finishTime     = 0;
+
+    } // class Flow
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The port of the first flow at each end; each later flow's is one more. */
+    private static final int  FIRST_PORT = 1024;
+
+    /** How often to collect arrived data, in ms. */
+    private static final long POLL_MS    = 50;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class FlowSimulator
+// =============================================================================
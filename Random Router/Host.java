@@ -1,8 +1,9 @@
 // =============================================================================
 // IMPORTS
 
-import java.util.Queue;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -11,6 +12,10 @@ import java.util.LinkedList;
 /**
  * A single host, comprising a single network stack, connected to a medium.
  *
+ * Data is sent and received in flows, each named by the hosts and ports at
+ * its two ends; port 0 at both ends is the default flow between two hosts.
+ * Received data is held, per flow, until retrieved.
+ *
  * @file   Host.java
  * @author Scott F. Kaplan (sfkaplan@cs.amherst.edu)
  * @date   April 2022
@@ -40,7 +45,10 @@ public class Host implements Runnable {
 
 	this.hostname     = hostname;
 	this.networkLayer = NetworkLayer.create(networkLayerType, this);
-	this.buffer       = new LinkedList<Byte>();
+	this.flows        = new LinkedHashMap<Long, ByteRing>();
+	this.transport    = (TransportLayer.enabled
+			     ? new TransportLayer(this, networkLayer)
+			     : null);
 
     } // Host ()
     // =========================================================================
@@ -49,11 +57,17 @@ public class Host implements Runnable {
 
     // =========================================================================
     /**
-     * 
+     * Attach a link to another host to this host's network layer.
+     *
+     * @param dataLinkLayer  The data link layer controlling the link.
+     * @param remoteHostname The name of the host at the other end.
+     * @param weight         The cost of sending over this link.
      */
-    public void attach (DataLinkLayer dataLinkLayer, String remoteHostname) {
+    public void attach (DataLinkLayer dataLinkLayer,
+			String        remoteHostname,
+			int           weight) {
 
-	networkLayer.attach(dataLinkLayer, remoteHostname);
+	networkLayer.attach(dataLinkLayer, remoteHostname, weight);
 	
     } // attach ()
     // =========================================================================
@@ -90,14 +104,32 @@ public class Host implements Runnable {
 
     // =========================================================================
     /**
-     * Send a sequence of bytes.
+     * Send a sequence of bytes in the default flow.
      *
      * @param destination The name of the host for which this data is destined.
      * @param data        The sequence of bytes to send.
      */
     public void send (String destination, byte[] data) {
 
-	networkLayer.send(destination, data);
+	send(destination, 0, 0, data, networkLayer.getTrafficClass());
+	
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes in the default flow, in a given traffic class.
+     *
+     * @param destination  The name of the host for which this data is destined.
+     * @param data         The sequence of bytes to send.
+     * @param trafficClass The class by which its packets are scheduled; 0 is
+     *                     the most urgent.
+     */
+    public void send (String destination, byte[] data, int trafficClass) {
+
+	send(destination, 0, 0, data, trafficClass);
 	
     } // send ()
     // =========================================================================
@@ -106,18 +138,130 @@ public class Host implements Runnable {
 
     // =========================================================================
     /**
-     * Receive bytes from the lower layer.  Buffer those until they are
-     * retrieved.
+     * Send a sequence of bytes from one port to another.
      *
-     * @param data The data received and to be buffered.
+     * @param destination     The name of the host for which this data is
+     *                        destined.
+     * @param sourcePort      The port at this host from which it is sent.
+     * @param destinationPort The port at the destination to which it is sent.
+     * @param data            The sequence of bytes to send.
      */
-    public void receive (byte[] data) {
+    public void send (String destination,
+		      int    sourcePort,
+		      int    destinationPort,
+		      byte[] data) {
+
+	send(destination, sourcePort, destinationPort, data,
+	     networkLayer.getTrafficClass());
+	
+    } // send ()
+    // =========================================================================
+
 
-	// Add the bytes into the buffer.
-	for (int i = 0; i < data.length; i += 1) {
-	    buffer.add(data[i]);
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes from one port to another, in a given traffic
+     * class.
+     *
+     * @param destination     The name of the host for which this data is
+     *                        destined.
+     * @param sourcePort      The port at this host from which it is sent.
+     * @param destinationPort The port at the destination to which it is sent.
+     * @param data            The sequence of bytes to send.
+     * @param trafficClass    The class by which its packets are scheduled; 0
+     *                        is the most urgent.
+     */
+    public void send (String destination,
+		      int    sourcePort,
+		      int    destinationPort,
+		      byte[] data,
+		      int    trafficClass) {
+
+	bytesSent.add(data.length);
+	if (transport != null) {
+	    transport.send(destination, sourcePort, destinationPort, data, trafficClass);
+	} else {
+	    networkLayer.send(destination, sourcePort, destinationPort, data, trafficClass);
 	}
 	
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes from a port to the same port at every member of
+     * a group.  Delivery is not assured, even with a transport layer.
+     *
+     * @param group           The group; 0 for every host.
+     * @param sourcePort      The port at this host from which it is sent.
+     * @param destinationPort The port at the members to which it is sent.
+     * @param data            The sequence of bytes to send.
+     */
+    public void sendToGroup (int    group,
+			     int    sourcePort,
+			     int    destinationPort,
+			     byte[] data) {
+
+	bytesSent.add(data.length);
+	networkLayer.sendToGroup(group, sourcePort, destinationPort, data,
+				 networkLayer.getTrafficClass());
+	
+    } // sendToGroup ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Join a group, so as to receive the data sent to it.
+     *
+     * @param group The group.
+     */
+    public void join (int group) {
+
+	networkLayer.join(group);
+
+    } // join ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Leave a group.
+     *
+     * @param group The group.
+     */
+    public void leave (int group) {
+
+	networkLayer.leave(group);
+
+    } // leave ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive the data of a packet from the network layer, passing it through
+     * the transport layer if there is one.
+     *
+     * @param source          The address of the host that sent it.
+     * @param sourcePort      The port at that host from which it was sent.
+     * @param destinationPort The port at this host to which it was sent.
+     * @param data            The data received.
+     */
+    public void receive (int source, int sourcePort, int destinationPort, byte[] data) {
+
+	if (transport != null) {
+	    transport.receive(source, sourcePort, destinationPort, data);
+	} else {
+	    deliver(source, sourcePort, destinationPort, data);
+	}
+
     } // receive ()
     // =========================================================================
 
@@ -125,17 +269,71 @@ public class Host implements Runnable {
 
     // =========================================================================
     /**
-     * Retrieve and return any bytes that have been received and buffered.
+     * Do any periodic work of the transport layer.  Called repeatedly by the
+     * network layer's event loop.
+     */
+    public void checkTimeout () {
+
+	if (transport != null) {
+	    transport.checkTimeout();
+	}
+
+    } // checkTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive bytes of a flow from the lower layer.  Buffer those until they
+     * are retrieved.
+     *
+     * @param source          The address of the host that sent them.
+     * @param sourcePort      The port at that host from which they were sent.
+     * @param destinationPort The port at this host to which they were sent.
+     * @param data            The data received and to be buffered.
+     */
+    public synchronized void deliver (int    source,
+				      int    sourcePort,
+				      int    destinationPort,
+				      byte[] data) {
+
+	// Add the bytes into the flow's buffer.
+	bytesReceived.add(data.length);
+	long     key    = flowKey(source, sourcePort, destinationPort);
+	ByteRing buffer = flows.get(key);
+	if (buffer == null) {
+	    buffer = new ByteRing();
+	    flows.put(key, buffer);
+	}
+	buffer.add(data);
+	
+    } // deliver ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Retrieve and return any bytes that have been received and buffered, in
+     * any flow.  Each flow's bytes are contiguous, and the flows are in the
+     * order in which each first received data.
      *
      * @return the buffered bytes.
      */
-    public byte[] retrieve () {
+    public synchronized byte[] retrieve () {
+
+	int total = 0;
+	for (ByteRing buffer : flows.values()) {
+	    total += buffer.size();
+	}
 
-	// Remove the bytes from the buffer, adding them to a newly formed array
-	// to be returned.
-	byte[] received = new byte[buffer.size()];
-	for (int i = 0; i < received.length; i += 1) {
-	    received[i] = buffer.remove();
+	byte[] received = new byte[total];
+	int    offset   = 0;
+	for (ByteRing buffer : flows.values()) {
+	    int size = buffer.size();
+	    buffer.remove(received, offset, size);
+	    offset += size;
 	}
 
 	return received;
@@ -145,6 +343,30 @@ public class Host implements Runnable {
 
 
 
+    // =========================================================================
+    /**
+     * Retrieve and return any bytes that have been received and buffered in
+     * one flow.
+     *
+     * @param source          The name of the host that sent them.
+     * @param sourcePort      The port at that host from which they were sent.
+     * @param destinationPort The port at this host to which they were sent.
+     * @return the buffered bytes.
+     */
+    public synchronized byte[] retrieve (String source,
+					 int    sourcePort,
+					 int    destinationPort) {
+
+	ByteRing buffer = flows.get(flowKey(AddressRegistry.lookup(source),
+					    sourcePort,
+					    destinationPort));
+	return (buffer == null ? new byte[0] : buffer.remove(buffer.size()));
+	
+    } // retrieve ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Provide the name of this host.
@@ -160,6 +382,26 @@ public class Host implements Runnable {
     
 
 
+    // =========================================================================
+    /**
+     * Provide a key that names a flow as seen from one of its ends.
+     *
+     * @param remote     The address of the host at the other end.
+     * @param remotePort The port at that host.
+     * @param localPort  The port at this host.
+     * @return the key.
+     */
+    public static long flowKey (int remote, int remotePort, int localPort) {
+
+	return ((long)remote << 32 |
+		(long)(remotePort & NetworkLayer.MAX_PORT) << 16 |
+		(localPort & NetworkLayer.MAX_PORT));
+
+    } // flowKey ()
+    // =========================================================================
+
+
+
     // =========================================================================
     // DATA MEMBERS
 
@@ -169,11 +411,20 @@ public class Host implements Runnable {
     /** The data link layer in this host's network stack. */
     private NetworkLayer networkLayer;
 
-    /** The buffered bytes received via the network stack. */
-    private Queue<Byte>  buffer;
+    /** The transport layer; <code>null</code> if none is used. */
+    private TransportLayer transport;
+
+    /** The buffered bytes received via the network stack, per flow. */
+    private Map<Long, ByteRing> flows;
 
     /** Whether to emit debugging information. */
     private static final boolean debug = false;
+
+    /** The number of bytes sent and received by all hosts. */
+    private static final LongAdder bytesSent
+	= Statistics.counter("host.bytesSent");
+    private static final LongAdder bytesReceived
+	= Statistics.counter("host.bytesReceived");
     // =========================================================================
 
     
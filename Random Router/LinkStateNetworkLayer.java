@@ -0,0 +1,846 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   LinkStateNetworkLayer.java
+ * @date   October 2026
+ *
+ * A network layer that routes along shortest paths, weighted as in the links
+ * file.  Each host periodically floods a link-state advertisement (LSA)
+ * listing its neighbors and the weights of its links to them.  From the
+ * advertisements it has collected, each host runs Dijkstra's algorithm and
+ * installs a forwarding table of the first link on the shortest path to each
+ * destination.
+ *
+ * An LSA travels as a control packet, carrying:
+ *
+ *     type (1 byte) | origin (4) | sequence number (4) | count (4) |
+ *     count x (neighbor address (4) | weight (4)) |
+ *     group count (4) | group count x group (4)
+ *
+ * A host keeps only the highest-numbered LSA from each origin, and passes
+ * each new one on to every neighbor but the one that sent it.  An LSA that is
+ * not superseded within <code>MAX_AGE</code> is discarded.  A host advertises
+ * afresh as soon as it joins or leaves a group.
+ *
+ * Packets to a group follow the shortest-path tree rooted at their source,
+ * pruned to the branches that lead to members, as in MOSPF.  Every host
+ * computes the same tree from the same database, so each sends a copy only
+ * on its own branches, and delivers one to its client if it is a member.  A
+ * packet that arrives other than from the host's parent in the tree is
+ * dropped, so that no copy loops while routes converge.  For each packet
+ * sent, the links the tree uses are counted against the links that a
+ * separate unicast copy to each member would have used.
+ */
+public class LinkStateNetworkLayer extends RoutingNetworkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Set up an empty link-state database.
+     */
+    public LinkStateNetworkLayer () {
+
+	database           = new HashMap<Integer, Advertisement>();
+	trees              = new HashMap<Long, Tree>();
+	groupPacketsToSend = new ConcurrentLinkedQueue<byte[]>();
+
+    } // LinkStateNetworkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pass a packet sent to a group to this host's thread to send down its
+     * tree; route any other packet by the forwarding table.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @param packet      The packet.
+     */
+    protected void sendPacket (int destination, byte[] packet) {
+
+	if (isGroup(destination)) {
+	    groupPacketsToSend.add(packet);
+	} else {
+	    super.sendPacket(destination, packet);
+	}
+
+    } // sendPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Given a packet received on a link, process it, sending a packet to a
+     * group down its tree.
+     *
+     * @param dataLink The link on which the packet arrived.
+     * @param packet   The received packet to process.
+     */
+    protected void processPacket (DataLinkLayer dataLink, byte[] packet) {
+
+	if (isGroup(readInt(packet, destinationOffset))) {
+	    multicast(dataLink, packet);
+	} else {
+	    super.processPacket(dataLink, packet);
+	}
+
+    } // processPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Indicate that this layer routes packets to groups.
+     *
+     * @return <code>true</code>.
+     */
+    protected boolean routesGroups () {
+
+	return true;
+
+    } // routesGroups ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advertise this host's new membership on the next pass of its loop.
+     */
+    protected void groupsChanged () {
+
+	membershipChanged = true;
+
+    } // groupsChanged ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in an LSA.
+     *
+     * @param dataLink The link on which the packet arrived.
+     * @param type     The type of control packet.
+     * @param packet   The whole packet, header included.
+     */
+    protected void processControl (DataLinkLayer dataLink,
+				   byte          type,
+				   byte[]        packet) {
+
+	if (type == LSA_TYPE) {
+	    receiveAdvertisement(dataLink, packet);
+	}
+
+    } // processControl ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Advertise this host's links when due, discard stale advertisements,
+     * recompute routes if the database has changed, and send any held packets
+     * that now have a route, including those sent to groups.
+     */
+    protected void checkTimeout () {
+
+	long now = System.currentTimeMillis();
+
+	if (membershipChanged) {
+	    membershipChanged     = false;
+	    nextAdvertisementTime = 0;
+	}
+	if (now >= nextAdvertisementTime) {
+	    nextAdvertisementTime = now + REFRESH_INTERVAL;
+	    originateAdvertisement();
+	    expireAdvertisements(now);
+	}
+
+	if (databaseChanged && now - lastRouteTime >= ROUTE_INTERVAL) {
+	    databaseChanged = false;
+	    lastRouteTime   = now;
+	    computeRoutes();
+	}
+
+	// Send the packets this host's client has sent to groups, once other
+	// hosts' advertisements have arrived.
+	if (database.size() > 1) {
+	    byte[] packet;
+	    while ((packet = groupPacketsToSend.poll()) != null) {
+		multicast(null, packet);
+	    }
+	}
+
+	super.checkTimeout();
+
+    } // checkTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the neighbors a host advertised in its latest LSA.
+     *
+     * @param host The host's address.
+     * @return their addresses, not to be modified; <code>null</code> if no
+     *         LSA from the host is held.
+     */
+    protected int[] advertisedNeighbors (int host) {
+
+	Advertisement lsa = database.get(host);
+	return (lsa == null ? null : lsa.neighbors);
+
+    } // advertisedNeighbors ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build an LSA for this host's links, with a new sequence number, record
+     * it, and send it to every neighbor.
+     */
+    private void originateAdvertisement () {
+
+	sequenceNumber += 1;
+	int[] neighbors = new int[linkWeights.size()];
+	int[] weights   = new int[linkWeights.size()];
+	int   i         = 0;
+	for (Map.Entry<Integer, Integer> entry : linkWeights.entrySet()) {
+	    neighbors[i] = entry.getKey();
+	    weights[i]   = entry.getValue();
+	    i += 1;
+	}
+	int[] memberships = new int[groups.size()];
+	i = 0;
+	for (int group : groups) {
+	    if (i < memberships.length) {
+		memberships[i++] = group;
+	    }
+	}
+	memberships = Arrays.copyOf(memberships, i);
+	Arrays.sort(memberships);
+
+	int    groupsOffset = lsaHeaderSize + neighbors.length * lsaEntrySize;
+	byte[] payload      = new byte[groupsOffset + Integer.BYTES +
+				       memberships.length * Integer.BYTES];
+	payload[0] = LSA_TYPE;
+	copyInto(payload, lsaOriginOffset,   intToBytes(address));
+	copyInto(payload, lsaSequenceOffset, intToBytes(sequenceNumber));
+	copyInto(payload, lsaCountOffset,    intToBytes(neighbors.length));
+	for (i = 0; i < neighbors.length; i += 1) {
+	    int offset = lsaHeaderSize + i * lsaEntrySize;
+	    copyInto(payload, offset,                 intToBytes(neighbors[i]));
+	    copyInto(payload, offset + Integer.BYTES, intToBytes(weights[i]));
+	}
+	copyInto(payload, groupsOffset, intToBytes(memberships.length));
+	for (i = 0; i < memberships.length; i += 1) {
+	    copyInto(payload, groupsOffset + (i + 1) * Integer.BYTES,
+		     intToBytes(memberships[i]));
+	}
+
+	Advertisement lsa = new Advertisement(sequenceNumber,
+					      neighbors,
+					      weights,
+					      memberships,
+					      System.currentTimeMillis());
+	record(address, lsa);
+	advertisementsOriginated.increment();
+
+	flood(null, buildPacket(CONTROL_ADDRESS, payload));
+
+    } // originateAdvertisement ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in a received LSA.  If it is newer than any held from its origin,
+     * record it and pass it on.
+     *
+     * @param dataLink The link on which it arrived.
+     * @param packet   The control packet holding the LSA.
+     */
+    private void receiveAdvertisement (DataLinkLayer dataLink, byte[] packet) {
+
+	advertisementsReceived.increment();
+
+	// Ignore anything malformed.
+	int base = bytesPerHeader;
+	if (packet.length < base + lsaHeaderSize) {
+	    return;
+	}
+	int origin   = readInt(packet, base + lsaOriginOffset);
+	int sequence = readInt(packet, base + lsaSequenceOffset);
+	int count    = readInt(packet, base + lsaCountOffset);
+	if (count < 0 ||
+	    count > (packet.length - base - lsaHeaderSize) / lsaEntrySize) {
+	    return;
+	}
+
+	// An LSA claiming to be from this host, but newer than any this host
+	// has sent, is left over from before; supersede it.
+	if (origin == address) {
+	    if (sequence >= sequenceNumber) {
+		sequenceNumber        = sequence;
+		nextAdvertisementTime = 0;
+	    }
+	    return;
+	}
+
+	Advertisement current = database.get(origin);
+	if (current != null && sequence <= current.sequenceNumber) {
+	    return;
+	}
+
+	int groupsOffset = base + lsaHeaderSize + count * lsaEntrySize;
+	if (packet.length < groupsOffset + Integer.BYTES) {
+	    return;
+	}
+	int groupCount = readInt(packet, groupsOffset);
+	if (groupCount < 0 ||
+	    groupCount > (packet.length - groupsOffset - Integer.BYTES) / Integer.BYTES) {
+	    return;
+	}
+
+	int[] neighbors = new int[count];
+	int[] weights   = new int[count];
+	for (int i = 0; i < count; i += 1) {
+	    int offset = base + lsaHeaderSize + i * lsaEntrySize;
+	    neighbors[i] = readInt(packet, offset);
+	    weights[i]   = readInt(packet, offset + Integer.BYTES);
+	}
+	int[] memberships = new int[groupCount];
+	for (int i = 0; i < groupCount; i += 1) {
+	    memberships[i] = readInt(packet, groupsOffset + (i + 1) * Integer.BYTES);
+	}
+	Arrays.sort(memberships);
+	record(origin, new Advertisement(sequence,
+					 neighbors,
+					 weights,
+					 memberships,
+					 System.currentTimeMillis()));
+
+	// Pass it on as this host's.
+	copyInto(packet, sourceOffset, intToBytes(address));
+	flood(dataLink, packet);
+
+    } // receiveAdvertisement ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Record an LSA.  Routes and trees need recomputing only if it changes the
+     * links or groups known for its origin, not merely refreshes them.
+     *
+     * @param origin The host whose links the LSA lists.
+     * @param lsa    The LSA.
+     */
+    private void record (int origin, Advertisement lsa) {
+
+	Advertisement previous = database.put(origin, lsa);
+	if (previous == null ||
+	    !Arrays.equals(previous.neighbors, lsa.neighbors) ||
+	    !Arrays.equals(previous.weights, lsa.weights) ||
+	    !Arrays.equals(previous.groups, lsa.groups)) {
+	    databaseChanged = true;
+	}
+
+    } // record ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a control packet on every link except one.
+     *
+     * @param except The link not to send on; <code>null</code> to send on all.
+     * @param packet The packet.
+     */
+    private void flood (DataLinkLayer except, byte[] packet) {
+
+	for (DataLinkLayer dataLink : dataLinkLayers.values()) {
+	    if (dataLink != except) {
+		transmit(dataLink, packet);
+		advertisementsSent.increment();
+	    }
+	}
+
+    } // flood ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Discard every other host's LSA that has not been superseded in time.
+     *
+     * @param now The current time.
+     */
+    private void expireAdvertisements (long now) {
+
+	Advertisement own = database.get(address);
+	if (database.values().removeIf(lsa -> lsa != own &&
+				       now - lsa.receivedTime > MAX_AGE)) {
+	    databaseChanged = true;
+	}
+
+    } // expireAdvertisements ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Install a new forwarding table of the first link along the shortest
+     * path to each reachable host, and discard the trees computed from the
+     * old database.
+     */
+    private void computeRoutes () {
+
+	routeComputations.increment();
+	trees.clear();
+
+	int             hosts  = AddressRegistry.size();
+	int[]           parent = new int[hosts];
+	int[]           order  = new int[hosts];
+	int[]           first  = new int[hosts];
+	DataLinkLayer[] table  = new DataLinkLayer[hosts];
+	int             count  = shortestPaths(address, parent, order);
+
+	// A host's first hop is its parent's, or itself if its parent is this
+	// host.  A first hop that is not a neighbor means a stale LSA, and
+	// leaves the host unreachable.
+	for (int i = 1; i < count; i += 1) {
+	    int host    = order[i];
+	    first[host] = (parent[host] == address ? host : first[parent[host]]);
+	    table[host] = neighborLink(first[host]);
+	}
+
+	installRoutes(table);
+
+    } // computeRoutes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run Dijkstra's algorithm over the link-state database.  Ties are broken
+     * by address, so that every host holding the same database finds the same
+     * tree.
+     *
+     * @param root   The host from which paths are found.
+     * @param parent Filled with each reached host's predecessor on its path.
+     * @param order  Filled with the reached hosts, in order of distance,
+     *               starting with the root.
+     * @return the number of hosts reached.
+     */
+    protected int shortestPaths (int root, int[] parent, int[] order) {
+
+	return shortestPaths(root, parent, order, new long[parent.length]);
+
+    } // shortestPaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Run Dijkstra's algorithm over the link-state database, as above, also
+     * giving the length of each path found.
+     *
+     * @param root     The host from which paths are found.
+     * @param parent   Filled with each reached host's predecessor on its path.
+     * @param order    Filled with the reached hosts, in order of distance,
+     *                 starting with the root.
+     * @param distance Filled with each host's distance from the root;
+     *                 <code>Long.MAX_VALUE</code> for those not reached.
+     * @return the number of hosts reached.
+     */
+    protected int shortestPaths (int root, int[] parent, int[] order, long[] distance) {
+
+	// The heap holds tentative paths as { distance, host, parent }; a host
+	// may appear more than once, so stale entries are skipped.
+	int                   hosts    = parent.length;
+	boolean[]             settled  = new boolean[hosts];
+	int                   count    = 0;
+	PriorityQueue<long[]> heap
+	    = new PriorityQueue<long[]>((a, b) -> (a[0] != b[0]
+						   ? Long.compare(a[0], b[0])
+						   : Long.compare(a[1], b[1])));
+
+	Arrays.fill(distance, Long.MAX_VALUE);
+	distance[root] = 0;
+	heap.add(new long[] { 0, root, root });
+	while (!heap.isEmpty()) {
+
+	    long[] path = heap.poll();
+	    int    host = (int)path[1];
+	    if (settled[host]) {
+		continue;
+	    }
+	    settled[host]  = true;
+	    parent[host]   = (int)path[2];
+	    order[count++] = host;
+
+	    // Relax each link this host advertises.
+	    Advertisement lsa = database.get(host);
+	    if (lsa == null) {
+		continue;
+	    }
+	    for (int i = 0; i < lsa.neighbors.length; i += 1) {
+		int  neighbor = lsa.neighbors[i];
+		long through  = path[0] + lsa.weights[i];
+		if (neighbor >= 0 && neighbor < hosts &&
+		    !settled[neighbor] && through < distance[neighbor]) {
+		    distance[neighbor] = through;
+		    heap.add(new long[] { through, neighbor, host });
+		}
+	    }
+
+	}
+
+	return count;
+
+    } // shortestPaths ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a packet to a group on down its tree, delivering it here if this
+     * host is a member.
+     *
+     * @param dataLink The link on which it arrived; <code>null</code> if this
+     *                 host's client sent it.
+     * @param packet   The packet.
+     */
+    private void multicast (DataLinkLayer dataLink, byte[] packet) {
+
+	int  source = readInt(packet, sourceOffset);
+	int  group  = readInt(packet, destinationOffset) & ~GROUP_ADDRESS_BASE;
+	Tree tree   = tree(source, group);
+	if (tree == null || dataLink != tree.upstream) {
+	    multicastDropped.increment();
+	    return;
+	}
+
+	if (dataLink == null) {
+	    multicastSent.increment();
+	    multicastTreeLinks.add(tree.treeLinks);
+	    multicastUnicastLinks.add(tree.unicastLinks);
+	    multicastLinksSaved.add(tree.unicastLinks - tree.treeLinks);
+	} else {
+	    int hopLimit = (packet[hopLimitOffset] & 0xff) - 1;
+	    if (hopLimit <= 0) {
+		packetsExpired.increment();
+		return;
+	    }
+	    if (isMember(group)) {
+		deliver(packet);
+	    }
+	    packet[hopLimitOffset] = (byte)hopLimit;
+	}
+
+	// Copy the packet only where the tree branches.
+	for (int i = 0; i < tree.branches.length; i += 1) {
+	    transmit(tree.branches[i],
+		     (i == tree.branches.length - 1 ? packet : packet.clone()));
+	    multicastTransmissions.increment();
+	}
+
+    } // multicast ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide this host's part of the tree by which packets from a source
+     * reach the members of a group, computing it if need be.
+     *
+     * @param source The address of the source.
+     * @param group  The group.
+     * @return the tree; <code>null</code> if the source is unknown.
+     */
+    private Tree tree (int source, int group) {
+
+	long key  = (long)source << 32 | group;
+	Tree tree = trees.get(key);
+	if (tree != null) {
+	    return tree;
+	}
+	if (source < 0 || source >= AddressRegistry.size()) {
+	    return null;
+	}
+	treeComputations.increment();
+
+	// Find the shortest paths from the source, and the depth of each host.
+	int   hosts  = AddressRegistry.size();
+	int[] parent = new int[hosts];
+	int[] order  = new int[hosts];
+	int[] depth  = new int[hosts];
+	int   count  = shortestPaths(source, parent, order);
+	for (int i = 1; i < count; i += 1) {
+	    depth[order[i]] = depth[parent[order[i]]] + 1;
+	}
+
+	// Working back from the farthest, mark the hosts that lead to members.
+	boolean[] needed       = new boolean[hosts];
+	boolean   reached      = false;
+	int       treeLinks    = 0;
+	int       unicastLinks = 0;
+	for (int i = count - 1; i >= 1; i -= 1) {
+	    int host = order[i];
+	    if (host == address) {
+		reached = true;
+	    }
+	    if (isMember(host, group)) {
+		needed[host]  = true;
+		unicastLinks += depth[host];
+	    }
+	    if (needed[host]) {
+		needed[parent[host]] = true;
+		treeLinks           += 1;
+	    }
+	}
+	if (!reached && source != address) {
+	    return null;
+	}
+
+	// This host's branches lead to the children it needs.
+	int             branchCount = 0;
+	DataLinkLayer[] branches    = new DataLinkLayer[count];
+	for (int i = 1; i < count; i += 1) {
+	    int           host = order[i];
+	    DataLinkLayer link = neighborLink(host);
+	    if (parent[host] == address && needed[host] && link != null) {
+		branches[branchCount++] = link;
+	    }
+	}
+
+	tree = new Tree(source == address ? null : neighborLink(parent[address]),
+			Arrays.copyOf(branches, branchCount),
+			treeLinks,
+			unicastLinks);
+	if (trees.size() >= MAX_TREES) {
+	    trees.clear();
+	}
+	trees.put(key, tree);
+	return tree;
+
+    } // tree ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether a host is a member of a group, by its LSA.
+     */
+    private boolean isMember (int host, int group) {
+
+	if (group == BROADCAST_GROUP) {
+	    return true;
+	}
+	Advertisement lsa = database.get(host);
+	return lsa != null && Arrays.binarySearch(lsa.groups, group) >= 0;
+
+    } // isMember ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * This host's part of the tree from one source to one group.
+     */
+    private static class Tree {
+
+	Tree (DataLinkLayer upstream, DataLinkLayer[] branches, int treeLinks, int unicastLinks) {
+	    this.upstream     = upstream;
+	    this.branches     = branches;
+	    this.treeLinks    = treeLinks;
+	    this.unicastLinks = unicastLinks;
+	}
+
+	/** The link to this host's parent; <code>null</code> at the source. */
+	final DataLinkLayer   upstream;
+
+	/** The links to this host's children that lead to members. */
+	final DataLinkLayer[] branches;
+
+	/**
+	 * The links in the whole tree, and the links that a unicast copy to
+	 * each member would take, counted from the source.
+	 */
+	final int             treeLinks;
+	final int             unicastLinks;
+
+    } // class Tree
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The most recent LSA received from a host.
+     */
+    private static class Advertisement {
+
+	Advertisement (int   sequenceNumber,
+		       int[] neighbors,
+		       int[] weights,
+		       int[] groups,
+		       long  receivedTime) {
+	    this.sequenceNumber = sequenceNumber;
+	    this.neighbors      = neighbors;
+	    this.weights        = weights;
+	    this.groups         = groups;
+	    this.receivedTime   = receivedTime;
+	}
+
+	final int   sequenceNumber;
+	final int[] neighbors;
+	final int[] weights;
+
+	/** The groups of which the host is a member, in order. */
+	final int[] groups;
+	final long  receivedTime;
+
+    } // class Advertisement
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The latest LSA from each host, keyed by host address. */
+    private Map<Integer, Advertisement> database;
+
+    /** The sequence number of this host's latest LSA. */
+    private int     sequenceNumber        = 0;
+
+    /** When this host's LSA is next due. */
+    private long    nextAdvertisementTime = 0;
+
+    /** Whether routes need to be recomputed, and when they last were. */
+    private boolean databaseChanged       = false;
+    private long    lastRouteTime         = 0;
+
+    /**
+     * This host's part of each tree computed from the database, keyed by
+     * source address and group.
+     */
+    private Map<Long, Tree> trees;
+
+    /** Packets this host's client has sent to groups, not yet sent on. */
+    private Queue<byte[]>   groupPacketsToSend;
+
+    /** Whether this host has joined or left a group since it last advertised. */
+    private volatile boolean membershipChanged = false;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The control packet type of an LSA. */
+    public static final byte LSA_TYPE = 1;
+
+    /** Offsets into an LSA, and the sizes of its header and of each entry. */
+    private static final int lsaOriginOffset   = 1;
+    private static final int lsaSequenceOffset = lsaOriginOffset + Integer.BYTES;
+    private static final int lsaCountOffset    = lsaSequenceOffset + Integer.BYTES;
+    private static final int lsaHeaderSize     = lsaCountOffset + Integer.BYTES;
+    private static final int lsaEntrySize      = 2 * Integer.BYTES;
+
+    /** How often (in ms) each host re-advertises its links. */
+    public static final long REFRESH_INTERVAL
+	= Long.getLong("linkstate.refresh", 1000);
+
+    /** How long (in ms) an LSA lasts without being superseded. */
+    public static final long MAX_AGE          = 3 * REFRESH_INTERVAL + REFRESH_INTERVAL / 2;
+
+    /** The least time (in ms) between route computations. */
+    public static final long ROUTE_INTERVAL   = 10;
+
+    /** The most trees a host keeps at once. */
+    public static final int  MAX_TREES        = 4096;
+
+    /** Counts of routing events across all link-state network layers. */
+    private static final LongAdder advertisementsOriginated
+	= Statistics.counter("linkstate.lsasOriginated");
+    private static final LongAdder advertisementsSent
+	= Statistics.counter("linkstate.lsasSent");
+    private static final LongAdder advertisementsReceived
+	= Statistics.counter("linkstate.lsasReceived");
+    private static final LongAdder routeComputations
+	= Statistics.counter("linkstate.routeComputations");
+
+    /**
+     * Counts of packets to groups across all link-state network layers: those
+     * sent, the copies sent on links, the links their trees used and would
+     * have used by unicast (and the difference), and those dropped.
+     */
+    private static final LongAdder multicastSent
+	= Statistics.counter("multicast.packetsSent");
+    private static final LongAdder multicastTransmissions
+	= Statistics.counter("multicast.linkTransmissions");
+    private static final LongAdder multicastTreeLinks
+	= Statistics.counter("multicast.treeLinks");
+    private static final LongAdder multicastUnicastLinks
+	= Statistics.counter("multicast.unicastLinks");
+    private static final LongAdder multicastLinksSaved
+	= Statistics.counter("multicast.linkTransmissionsSaved");
+    private static final LongAdder multicastDropped
+	= Statistics.counter("multicast.packetsDropped");
+    private static final LongAdder treeComputations
+	= Statistics.counter("multicast.treeComputations");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class LinkStateNetworkLayer
+// =============================================================================
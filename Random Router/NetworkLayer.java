@@ -2,12 +2,17 @@
 // IMPORTS
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Set;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -99,7 +104,14 @@ public abstract class NetworkLayer {
 
 	// Initialize an empty collection of data link layers.
 	dataLinkLayers = new HashMap<Integer, DataLinkLayer>();
-	receiveBuffers = new HashMap<DataLinkLayer, Queue<Byte>>();
+	receiveBuffers = new HashMap<DataLinkLayer, ByteRing>();
+	linkWeights    = new HashMap<Integer, Integer>();
+	linkMtus       = new HashMap<DataLinkLayer, Integer>();
+	outputQueues   = new HashMap<DataLinkLayer, PacketScheduler>();
+	reassemblies   = new LinkedHashMap<Long, Reassembly>();
+	nextSequences  = new ConcurrentHashMap<Long, AtomicInteger>();
+	groups         = ConcurrentHashMap.newKeySet();
+	reorderBuffers = new HashMap<Long, ReorderBuffer>();
 
     } // NetworkLayer ()
     // =========================================================================
@@ -124,7 +136,17 @@ public abstract class NetworkLayer {
 	this.client  = client;
 
 	// Determine my address based on the hostname.
-	this.address = client.getHostname().hashCode();
+	this.address = AddressRegistry.intern(client.getHostname());
+
+	// Count the packets that expire here.
+	packetsExpired = Statistics.counter("network.packetsExpired." +
+					    client.getHostname());
+
+	// Determine the largest packet this host's links may carry.
+	mtu = mtu(client.getHostname());
+
+	// Determine the traffic class of the data this host sends.
+	trafficClass = Integer.getInteger("class." + client.getHostname(), DATA_CLASS);
 
     } // register ()
     // =========================================================================
@@ -134,7 +156,7 @@ public abstract class NetworkLayer {
     // =========================================================================
     /**
      * Given a link that connects this host to another, attach its data link
-     * layer to this network layer.
+     * layer to this network layer, with a weight of 1.
      *
      * @param dataLinkLayer The data link layer controlling the link.
      * @param hostname      The name of the remote host to which this link is
@@ -144,13 +166,37 @@ public abstract class NetworkLayer {
      */
     public void attach (DataLinkLayer dataLinkLayer, String remoteHostname) {
 
+	attach(dataLinkLayer, remoteHostname, 1);
+
+    } // attach ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Given a link that connects this host to another, attach its data link
+     * layer to this network layer.
+     *
+     * @param dataLinkLayer The data link layer controlling the link.
+     * @param hostname      The name of the remote host to which this link is
+     *                      connected.
+     * @param weight        The cost of sending over this link, as given in the
+     *                      links file.
+     * @throws RuntimeException if the hostname or the data link layer is a
+     *                          duplicate (or <code>null</code>).
+     */
+    public void attach (DataLinkLayer dataLinkLayer,
+			String        remoteHostname,
+			int           weight) {
+
 	// Make sure the arguments aren't null.
 	if (remoteHostname == null || dataLinkLayer == null) {
 	    throw new RuntimeException("Cannot attach with null arguments");
 	}
 
 	// Determine the address of the host at the other end of this link...
-	int remoteAddress = remoteHostname.hashCode();
+	int remoteAddress = AddressRegistry.intern(remoteHostname);
 
 	// .. and add it to our collection data links, ensuring that it's not a
 	// duplicate.
@@ -162,12 +208,33 @@ public abstract class NetworkLayer {
 	    throw new RuntimeException("Cannot attach duplicate data link");
 	}
 	dataLinkLayers.put(remoteAddress, dataLinkLayer);
+	linkWeights.put(remoteAddress, weight);
+
+	// Rebuild the array of links indexed by neighbor address.
+	DataLinkLayer[] links = new DataLinkLayer[Math.max(AddressRegistry.size(),
+							   remoteAddress + 1)];
+	for (Map.Entry<Integer, DataLinkLayer> entry : dataLinkLayers.entrySet()) {
+	    links[entry.getKey()] = entry.getValue();
+	}
+	linksByAddress = links;
+	attachedLinks  = dataLinkLayers.values().toArray(new DataLinkLayer[0]);
 
 	// Create a queue for any data received on this link.
-	receiveBuffers.put(dataLinkLayer, new LinkedList<Byte>());
+	receiveBuffers.put(dataLinkLayer, new ByteRing());
+
+	// A link carries packets no larger than both of its ends allow.
+	linkMtus.put(dataLinkLayer, Math.min(mtu, mtu(remoteHostname)));
 
-	// Register this network layer as the client of this data link layer.
+	// Queue packets for the link until it is ready for them.
+	PacketScheduler queue = PacketScheduler.create(SCHEDULER);
+	outputQueues.put(dataLinkLayer, queue);
+
+	// Register this network layer as the client of this data link layer,
+	// and name the link, and its queue, after its two ends.
+	String linkName = client.getHostname() + "->" + remoteHostname;
 	dataLinkLayer.register(this);
+	dataLinkLayer.setName(linkName);
+	queue.setName(linkName);
 	
     } // attach ()
     // =========================================================================
@@ -187,137 +254,980 @@ public abstract class NetworkLayer {
         while (doEventLoop) {
 
 	    // Check each link for activity, each in turn.
-	    for (DataLinkLayer dataLinkLayer : dataLinkLayers.values()) {
+	    for (DataLinkLayer dataLinkLayer : attachedLinks) {
+
+		// Feed the link from its output queue, in the order the
+		// scheduler chooses, as it makes room.
+		PacketScheduler queue = outputQueues.get(dataLinkLayer);
+		while (dataLinkLayer.canAccept()) {
+		    byte[] packet = queue.dequeue();
+		    if (packet == null) {
+			break;
+		    }
+		    sendFrom(dataLinkLayer, packet);
+		}
 
 		// Let the data link layer send or receive as needed.
 		dataLinkLayer.checkEvents();
 
-		// Has data been received and buffered on this link?
-		// If so, determine if it contains a packet for processing.
-		Queue<Byte> buffer = receiveBuffers.get(dataLinkLayer);
-		if (buffer.size() > 0) {
+		// Has data been received and buffered on this link?  If so,
+		// process each whole packet it contains; an aggregated frame may
+		// have delivered several at once.
+		ByteRing buffer = receiveBuffers.get(dataLinkLayer);
+		while (buffer.size() > 0) {
 		    byte[] packet = extractPacket(buffer);
+		    if (packet == null) {
+			break;
+		    }
+		    packet = reassemble(packet);
 		    if (packet != null) {
-			processPacket(packet);
+			processPacket(dataLinkLayer, packet);
 		    }
 		}
 		
 	    }
 
-        } // Event loop
+	    // Perform any periodic work.  Expiry is measured in hundreds of
+	    // ms, so need not be checked on every pass.
+	    long now = System.currentTimeMillis();
+	    if (now - lastExpiry >= EXPIRY_INTERVAL) {
+		lastExpiry = now;
+		expireReassemblies();
+		expireReorders();
+	    }
+	    checkTimeout();
+	    client.checkTimeout();
+
+        } // Event loop
+
+    } // go ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * End the event loop.
+     */
+    public void stop () {
+
+        doEventLoop = false;
+
+    } // stop ()
+    // =========================================================================
+    
+
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes through this layer in this host's traffic
+     * class.  Expected to be called by the client.
+     *
+     * @param destination The name of the destination host.
+     * @param data        The sequence of bytes to send.
+     */
+    public void send (String destination, byte[] data) {
+
+	send(destination, data, trafficClass);
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes through this layer in the default flow between
+     * the two hosts.  Expected to be called by the client.
+     *
+     * @param destination  The name of the destination host.
+     * @param data         The sequence of bytes to send.
+     * @param trafficClass The class by which the packets are scheduled, from
+     *                     0 (the most urgent) to
+     *                     <code>PacketScheduler.NUM_CLASSES - 1</code>.
+     */
+    public void send (String destination, byte[] data, int trafficClass) {
+
+	send(destination, 0, 0, data, trafficClass);
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes through this layer.  Expected to be called by
+     * the client.  Packets are constructed and then sent via whichever data
+     * link the is chosen by the routing method.
+     *
+     * @param destination     The name of the destination host.
+     * @param sourcePort      The port at this host from which the data is
+     *                        sent.
+     * @param destinationPort The port at the destination to which it is
+     *                        sent.
+     * @param data            The sequence of bytes to send.
+     * @param trafficClass    The class by which the packets are scheduled,
+     *                        from 0 (the most urgent) to
+     *                        <code>PacketScheduler.NUM_CLASSES - 1</code>.
+     * @throws RuntimeException if either port is out of range.
+     */
+    public void send (String destination,
+		      int    sourcePort,
+		      int    destinationPort,
+		      byte[] data,
+		      int    trafficClass) {
+
+	checkPorts(sourcePort, destinationPort);
+
+	// Determine the address of the destination, and the flow's sequence.
+	int           destinationAddress = AddressRegistry.lookup(destination);
+	AtomicInteger sequences          = (sequenced
+					    ? nextSequences.computeIfAbsent(Host.flowKey(destinationAddress,
+											 destinationPort,
+											 sourcePort),
+									    f -> new AtomicInteger())
+					    : null);
+	sendData(destinationAddress, sequences, sourcePort, destinationPort, data, trafficClass);
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a sequence of bytes through this layer to every member of a group
+     * of hosts.  Expected to be called by the client.  Packets to a group are
+     * not sequenced, and bypass the transport layer.
+     *
+     * @param group           The group, from 0 (every host) to
+     *                        <code>MAX_GROUP</code>.
+     * @param sourcePort      The port at this host from which the data is
+     *                        sent.
+     * @param destinationPort The port at the members to which it is sent.
+     * @param data            The sequence of bytes to send.
+     * @param trafficClass    The class by which the packets are scheduled.
+     * @throws RuntimeException if this layer cannot route to groups, or the
+     *                          group or either port is out of range.
+     */
+    public void sendToGroup (int    group,
+			     int    sourcePort,
+			     int    destinationPort,
+			     byte[] data,
+			     int    trafficClass) {
+
+	if (!routesGroups()) {
+	    throw new RuntimeException(getClass().getName() +
+				       " does not route to groups");
+	}
+	checkPorts(sourcePort, destinationPort);
+	sendData(groupAddress(group), null, sourcePort, destinationPort, data, trafficClass);
+
+    } // sendToGroup ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Make this host a member of a group, so that data sent to the group is
+     * delivered to it.
+     *
+     * @param group The group, from 1 to <code>MAX_GROUP</code>; every host is
+     *              always a member of group 0.
+     * @throws RuntimeException if the group is out of range.
+     */
+    public void join (int group) {
+
+	groupAddress(group);
+	if (group != BROADCAST_GROUP && groups.add(group)) {
+	    groupsChanged();
+	}
+
+    } // join ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * End this host's membership of a group.
+     *
+     * @param group The group.
+     */
+    public void leave (int group) {
+
+	if (groups.remove(group)) {
+	    groupsChanged();
+	}
+
+    } // leave ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether this host is a member of a group.
+     *
+     * @param group The group.
+     * @return <code>true</code> if it is.
+     */
+    public boolean isMember (int group) {
+
+	return group == BROADCAST_GROUP || groups.contains(group);
+
+    } // isMember ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the address of a group.
+     *
+     * @param group The group, from 0 (every host) to <code>MAX_GROUP</code>.
+     * @return the address.
+     * @throws RuntimeException if the group is out of range.
+     */
+    public static int groupAddress (int group) {
+
+	if (group < 0 || group > MAX_GROUP) {
+	    throw new RuntimeException("Invalid group " + group);
+	}
+	return GROUP_ADDRESS_BASE | group;
+
+    } // groupAddress ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether an address is that of a group.
+     *
+     * @param address The address.
+     * @return <code>true</code> if it is.
+     */
+    public static boolean isGroup (int address) {
+
+	return address >= 0 && (address & GROUP_ADDRESS_BASE) != 0;
+
+    } // isGroup ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Check that two ports are in range.
+     *
+     * @throws RuntimeException if either is not.
+     */
+    private static void checkPorts (int sourcePort, int destinationPort) {
+
+	if (sourcePort < 0 || sourcePort > MAX_PORT ||
+	    destinationPort < 0 || destinationPort > MAX_PORT) {
+	    throw new RuntimeException("Invalid ports " + sourcePort + " -> " +
+				       destinationPort);
+	}
+
+    } // checkPorts ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the most data a packet to a destination should carry, so that
+     * it need not be fragmented: by default, as much as fits this host's MTU.
+     * Data sent through this layer is cut into packets of this size.
+     *
+     * @param destination The address to which the packet is being sent.
+     * @return the number of data bytes.
+     */
+    public int maxPacketData (int destination) {
+
+	return mtu - bytesPerHeader;
+
+    } // maxPacketData ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Cut data into packets and send each.
+     *
+     * @param destinationAddress The address of the destination host or group.
+     * @param sequences          The flow's sequence numbers; <code>null</code>
+     *                           if its packets are not sequenced.
+     * @param sourcePort         The port at this host.
+     * @param destinationPort    The port at the destination.
+     * @param data               The sequence of bytes to send.
+     * @param trafficClass       The class by which the packets are scheduled.
+     */
+    private void sendData (int           destinationAddress,
+			   AtomicInteger sequences,
+			   int           sourcePort,
+			   int           destinationPort,
+			   byte[]        data,
+			   int           trafficClass) {
+
+	// Loop through the data in chunks that fit the path, so that each is a
+	// packet of its own, lost or reordered alone.  Any that still meets a
+	// smaller link is fragmented when it is sent on it.
+	int maxData    = maxPacketData(destinationAddress);
+	int numPackets = ((data.length / maxData) +
+			  (data.length % maxData == 0 ? 0 : 1));
+	for (int i = 0; i < numPackets; i += 1) {
+
+	    // Make a packet of the next packet-worth of data, copied once,
+	    // straight from the caller's array.
+	    int    start      = i * maxData;
+	    int    end        = Math.min((i + 1) * maxData,
+					 data.length);
+	    byte[] packet     = buildPacket(destinationAddress, data, start, end - start);
+	    packet[trafficClassOffset] = (byte)trafficClass;
+	    writeShort(packet, sourcePortOffset,      sourcePort);
+	    writeShort(packet, destinationPortOffset, destinationPort);
+	    if (sequences != null) {
+		int sequence = sequences.incrementAndGet();
+		if (sequence == 0) {
+		    sequence = sequences.incrementAndGet();
+		}
+		writeInt(packet, sequenceOffset, sequence);
+	    }
+
+	    // Route and send the packet.
+	    sendPacket(destinationAddress, packet);
+	    packetsSent.increment();
+
+	    if (debug) {
+		System.err.printf("Address %d sent packet:\n\t%s\n",
+				  address,
+				  bytesToString(packet));
+	    }
+	    
+	}
+	
+    } // sendData ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a single packet containing the given data, with header that marks
+     * the source and destination hosts.
+     *
+     * @param destination The address to which this packet is sent.
+     * @param data        The data to send.
+     * @return the sequence of bytes that comprises the packet;
+     *         <code>null</code> if the data is too large for one packet.
+     */
+    protected byte[] createPacket (int destination, byte[] data) {
+
+	if (data.length > MAX_DATAGRAM_SIZE - bytesPerHeader) {
+	    return null;
+	}
+	return buildPacket(destination, data);
+
+    } // createPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a packet of any length, with a header of its length, its
+     * destination, this host as its source, a full hop limit, a new
+     * identification, and this host's traffic class (or the control class),
+     * followed by the data.  It is not a fragment, and is in the default
+     * flow.
+     *
+     * @param destination The address to which this packet is sent.
+     * @param data        The data to send.
+     * @return the sequence of bytes that comprises the packet.
+     */
+    protected byte[] buildPacket (int destination, byte[] data) {
+
+	return buildPacket(destination, data, 0, data.length);
+
+    } // buildPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a packet, as above, of part of an array of data.  The header is
+     * written in place, so that the packet is the only array allocated.
+     *
+     * @param destination The address to which this packet is sent.
+     * @param data        The array holding the data to send.
+     * @param offset      The position of the first byte to send.
+     * @param length      The number of bytes to send.
+     * @return the sequence of bytes that comprises the packet.
+     */
+    protected byte[] buildPacket (int destination, byte[] data, int offset, int length) {
+
+	byte[] packet = new byte[bytesPerHeader + length];
+	writeInt(packet, lengthOffset,      packet.length);
+	writeInt(packet, destinationOffset, destination);
+	writeInt(packet, sourceOffset,      address);
+	packet[hopLimitOffset] = (byte)HOP_LIMIT;
+	writeShort(packet, identificationOffset, nextIdentification.getAndIncrement());
+	packet[trafficClassOffset] = (byte)(destination == CONTROL_ADDRESS
+					    ? CONTROL_CLASS
+					    : trafficClass);
+	System.arraycopy(data, offset, packet, bytesPerHeader, length);
+
+	return packet;
+
+    } // buildPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the link that leads directly to a given host.
+     *
+     * @param address The address of the host.
+     * @return the link; <code>null</code> if the host is not a neighbor.
+     */
+    protected DataLinkLayer neighborLink (int address) {
+
+	DataLinkLayer[] links = linksByAddress;
+	return (address >= 0 && address < links.length ? links[address] : null);
+
+    } // neighborLink ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send on a packet that is passing through this host, unless it has been
+     * forwarded as many times as its hop limit allows, in which case it is
+     * dropped.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @param packet      The packet.
+     */
+    protected void forward (int destination, byte[] packet) {
+
+	int hopLimit = (packet[hopLimitOffset] & 0xff) - 1;
+	if (hopLimit <= 0) {
+	    packetsExpired.increment();
+	    return;
+	}
+	packet[hopLimitOffset] = (byte)hopLimit;
+
+	sendPacket(destination, packet);
+	packetsForwarded.increment();
+
+    } // forward ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Deliver the data of a packet destined for this host to the client,
+     * counting the links it crossed to get here.  A packet with a sequence
+     * number passes through its flow's reorder buffer, and is delivered along
+     * with any others of the flow it releases.  A packet sent to a group is
+     * delivered straight to the client's flow buffers.
+     *
+     * @param packet The packet.
+     */
+    protected void deliver (byte[] packet) {
+
+	// Deliver the data, if it was a valid packet.
+	byte[] data = new byte[packet.length - bytesPerHeader];
+	if (data.length > MAX_DATAGRAM_SIZE - bytesPerHeader) {
+	    return;
+	}
+	copyFrom(data, packet, bytesPerHeader);
+	packetsDelivered.increment();
+
+	// Each forward decremented the hop limit; the first link did not.
+	int hops = HOP_LIMIT - (packet[hopLimitOffset] & 0xff) + 1;
+	if (hops >= 1 && hops <= HOP_LIMIT) {
+	    hopCount(hops).increment();
+	}
+
+	int source          = readInt(packet, sourceOffset);
+	int sourcePort      = readShort(packet, sourcePortOffset);
+	int destinationPort = readShort(packet, destinationPortOffset);
+	int sequence        = readInt(packet, sequenceOffset);
+	if (isGroup(readInt(packet, destinationOffset))) {
+	    client.deliver(source, sourcePort, destinationPort, data);
+	    return;
+	}
+	if (sequence == 0) {
+	    client.receive(source, sourcePort, destinationPort, data);
+	    return;
+	}
+
+	long          flow    = Host.flowKey(source, sourcePort, destinationPort);
+	ReorderBuffer reorder = reorderBuffers.get(flow);
+	if (reorder == null) {
+	    reorder = new ReorderBuffer();
+	    reorderBuffers.put(flow, reorder);
+	}
+	reorder.insert(sequence, data, System.currentTimeMillis());
+	while ((data = reorder.poll()) != null) {
+	    client.receive(source, sourcePort, destinationPort, data);
+	}
+
+    } // deliver ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the histogram counter of packets delivered after the given
+     * number of hops.
+     */
+    private static LongAdder hopCount (int hops) {
+
+	LongAdder counter = hopCounts[hops];
+	if (counter == null) {
+	    counter = Statistics.counter(String.format("network.deliveredAfterHops.%03d",
+						       hops));
+	    hopCounts[hops] = counter;
+	}
+	return counter;
+
+    } // hopCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose a link for a packet and pass the packet to it.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @param packet      The packet.
+     */
+    protected void sendPacket (int destination, byte[] packet) {
+
+	transmit(route(destination), packet);
+
+    } // sendPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Queue a packet for a link, first splitting it into fragments if it is
+     * larger than the link can carry.  Each fragment carries the original
+     * header, marked with the offset of its data within the original data and
+     * whether more fragments follow.
+     *
+     * @param dataLink The link on which to send.
+     * @param packet   The packet, which may itself be a fragment.
+     */
+    protected void transmit (DataLinkLayer dataLink, byte[] packet) {
+
+	PacketScheduler queue   = outputQueues.get(dataLink);
+	int             linkMtu = linkMtus.get(dataLink);
+	if (packet.length <= linkMtu) {
+	    queue.enqueue(packet, packet[trafficClassOffset]);
+	    return;
+	}
+
+	int     fragmentInfo = readInt(packet, fragmentOffset);
+	int     baseOffset   = fragmentInfo & FRAGMENT_OFFSET_MASK;
+	boolean more         = (fragmentInfo & MORE_FRAGMENTS) != 0;
+	int     dataLength   = packet.length - bytesPerHeader;
+	int     maxData      = linkMtu - bytesPerHeader;
+	for (int start = 0; start < dataLength; start += maxData) {
+
+	    int    length   = Math.min(maxData, dataLength - start);
+	    byte[] fragment = new byte[bytesPerHeader + length];
+	    System.arraycopy(packet, 0, fragment, 0, bytesPerHeader);
+	    System.arraycopy(packet, bytesPerHeader + start, fragment, bytesPerHeader, length);
+
+	    boolean last = (start + length == dataLength);
+	    writeInt(fragment, lengthOffset, fragment.length);
+	    writeInt(fragment, fragmentOffset,
+		     (baseOffset + start) | (more || !last ? MORE_FRAGMENTS : 0));
+	    queue.enqueue(fragment, fragment[trafficClassOffset]);
+	    fragmentsCreated.increment();
+
+	}
+
+    } // transmit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pass a packet, or fragment, from an output queue to its link, with its
+     * header in compact form if so configured.  The header is converted in
+     * place and restored once the link has taken a copy, since the same
+     * packet may be sent again.
+     *
+     * @param dataLink The link on which to send.
+     * @param packet   The packet.
+     */
+    private void sendFrom (DataLinkLayer dataLink, byte[] packet) {
+
+	int start = (compactHeaders ? CompactHeader.encode(packet) : 0);
+	dataLink.send(packet, start, packet.length - start);
+	headerBytesSent.add(bytesPerHeader - start);
+	dataBytesSent.add(packet.length - bytesPerHeader);
+	if (start > 0) {
+	    CompactHeader.decode(packet, start);
+	}
+
+    } // sendFrom ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Collect a received fragment of a packet that this host reassembles
+     * (see <code>collectsFragments()</code>).  Other fragments, and whole
+     * packets, are passed through untouched.
+     *
+     * @param packet The received packet.
+     * @return the packet, or the whole reassembled packet if this fragment
+     *         completed one; <code>null</code> if it is not yet complete.
+     */
+    protected byte[] reassemble (byte[] packet) {
+
+	int fragmentInfo = readInt(packet, fragmentOffset);
+	if (fragmentInfo == 0) {
+	    return packet;
+	}
+	if (!collectsFragments(readInt(packet, destinationOffset))) {
+	    return packet;
+	}
+
+	// Find the packet this is part of, making room for it if it is new.
+	int  source         = readInt(packet, sourceOffset);
+	int  identification = readShort(packet, identificationOffset);
+	long key            = (long)source << 16 | identification;
+	Reassembly reassembly = reassemblies.get(key);
+	if (reassembly == null) {
+	    if (reassemblies.size() >= MAX_REASSEMBLIES) {
+		Iterator<Reassembly> oldest = reassemblies.values().iterator();
+		oldest.next();
+		oldest.remove();
+		reassembliesEvicted.increment();
+	    }
+	    reassembly = new Reassembly(System.currentTimeMillis());
+	    reassemblies.put(key, reassembly);
+	}
+
+	// Add this fragment's data at its offset.
+	int offset = fragmentInfo & FRAGMENT_OFFSET_MASK;
+	int length = packet.length - bytesPerHeader;
+	if (offset + length > MAX_DATAGRAM_SIZE - bytesPerHeader) {
+	    reassemblies.remove(key);
+	    return null;
+	}
+	reassembly.add(packet, offset, length, (fragmentInfo & MORE_FRAGMENTS) == 0);
+	if (!reassembly.isComplete()) {
+	    return null;
+	}
+
+	// Rebuild the whole packet under this fragment's header.
+	reassemblies.remove(key);
+	byte[] whole = new byte[bytesPerHeader + reassembly.totalLength];
+	System.arraycopy(packet, 0, whole, 0, bytesPerHeader);
+	System.arraycopy(reassembly.data, 0, whole, bytesPerHeader, reassembly.totalLength);
+	writeInt(whole, lengthOffset,   whole.length);
+	writeInt(whole, fragmentOffset, 0);
+	datagramsReassembled.increment();
+
+	return whole;
+
+    } // reassemble ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether this host reassembles the fragments of packets to a
+     * destination, rather than passing them on as they are: by default, only
+     * of packets to this host, its neighbors or a group.
+     *
+     * @param destination The address to which the packets are sent.
+     * @return <code>true</code> if it reassembles them.
+     */
+    protected boolean collectsFragments (int destination) {
+
+	return (destination == address ||
+		destination == CONTROL_ADDRESS ||
+		isGroup(destination));
+
+    } // collectsFragments ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Abandon packets whose fragments have not all arrived in time.  The
+     * reassemblies are kept in order of creation, so only the oldest need be
+     * examined.
+     */
+    private void expireReassemblies () {
+
+	if (reassemblies.isEmpty()) {
+	    return;
+	}
+	long                 now = System.currentTimeMillis();
+	Iterator<Reassembly> i   = reassemblies.values().iterator();
+	while (i.hasNext() && now - i.next().startTime > REASSEMBLY_TIMEOUT) {
+	    i.remove();
+	    reassembliesTimedOut.increment();
+	}
+
+    } // expireReassemblies ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Skip the gaps that have stayed open too long in every flow's reorder
+     * buffer, delivering the packets held beyond them.
+     */
+    private void expireReorders () {
+
+	if (reorderBuffers.isEmpty()) {
+	    return;
+	}
+	long now = System.currentTimeMillis();
+	for (Map.Entry<Long, ReorderBuffer> entry : reorderBuffers.entrySet()) {
+	    ReorderBuffer reorder         = entry.getValue();
+	    long          flow            = entry.getKey();
+	    int           source          = (int)(flow >>> 32);
+	    int           sourcePort      = (int)(flow >>> 16) & MAX_PORT;
+	    int           destinationPort = (int)flow & MAX_PORT;
+	    reorder.expire(now);
+	    byte[] data;
+	    while ((data = reorder.poll()) != null) {
+		client.receive(source, sourcePort, destinationPort, data);
+	    }
+	}
+
+    } // expireReorders ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The fragments of one packet received so far.
+     */
+    private static class Reassembly {
+
+	Reassembly (long startTime) {
+	    this.startTime = startTime;
+	    this.data      = new byte[0];
+	    this.received  = new BitSet();
+	}
+
+	/**
+	 * Copy a fragment's data into place.  The total length is known once
+	 * the last fragment arrives.
+	 */
+	void add (byte[] fragment, int offset, int length, boolean last) {
+	    if (offset + length > data.length) {
+		data = Arrays.copyOf(data, Math.max(offset + length, 2 * data.length));
+	    }
+	    System.arraycopy(fragment, bytesPerHeader, data, offset, length);
+	    received.set(offset, offset + length);
+	    if (last) {
+		totalLength = offset + length;
+	    }
+	}
+
+	boolean isComplete () {
+	    return totalLength >= 0 && received.nextClearBit(0) >= totalLength;
+	}
+
+	final long startTime;
+	byte[]     data;
+	BitSet     received;
+	int        totalLength = -1;
+
+    } // class Reassembly
+    // =========================================================================
 
-    } // go ()
+
+
+    // =========================================================================
+    /**
+     * Choose the link through which to send a packet given its destination.
+     *
+     * @param destination The address to which this packet is being sent.
+     */
+    abstract protected DataLinkLayer route (int destination);
     // =========================================================================
 
 
 
     // =========================================================================
     /**
-     * End the event loop.
+     * Examine a buffer to see if it's data can be extracted as a packet; if so,
+     * do it, and return the packet whole.
+     *
+     * @param buffer The receive-buffer to be examined.
+     * @return the packet extracted packet if a whole one is present in the
+     *         buffer; <code>null</code> otherwise.
      */
-    public void stop () {
+    protected byte[] extractPacket (ByteRing buffer) {
 
-        doEventLoop = false;
+	// A fixed header begins with a zero byte; anything else is compact.
+	if (buffer.size() > 0 && buffer.peek(0) != 0) {
+	    return extractCompactPacket(buffer);
+	}
 
-    } // stop ()
+	// Is there a whole header?  If so, read the packet's length from it.
+	if (buffer.size() < bytesPerHeader) {
+	    return null;
+	}
+	int length = buffer.peekInt(lengthOffset);
+
+	// A length shorter than a header cannot be right, and nothing that
+	// follows can be trusted to be aligned with a packet.
+	if (length < bytesPerHeader) {
+	    buffer.clear();
+	    return null;
+	}
+
+	// Have all of the packet's bytes arrived?
+	if (length > buffer.size()) {
+	    return null;
+	}
+	return buffer.remove(length);
+
+    } // extractPacket ()
     // =========================================================================
-    
+
 
 
     // =========================================================================
     /**
-     * Send a sequence of bytes through this layer.  Expected to be called by
-     * the client.  Packets are constructed and then sent via whichever data
-     * link the is chosen by the routing method.
+     * Remove a packet with a compact header from a receive-buffer, if it has
+     * arrived whole, and expand its header to fixed form.  It is read into
+     * the array at the point where the expanded header will end, so that
+     * expanding it moves no data.
      *
-     * @param destination The name of the destination host.
-     * @param data        The sequence of bytes to send.
+     * @param buffer The receive-buffer to be examined.
+     * @return the packet, with a fixed header, if a whole one is present;
+     *         <code>null</code> otherwise.
      */
-    public void send (String destination, byte[] data) {
+    private byte[] extractCompactPacket (ByteRing buffer) {
 
-	// Determine the address of the destination.
-	int destinationAddress = destination.hashCode();
-	
-	// Loop through the data in packet-size chunks.
-	int numPackets = ((data.length / MAX_PACKET_SIZE) +
-			  (data.length % MAX_PACKET_SIZE == 0 ? 0 : 1));
-	for (int i = 0; i < numPackets; i += 1) {
-
-	    // Grab the next packet-worth of data a make of packet of it.
-	    int    start      = i * MAX_PACKET_SIZE;
-	    int    end        = Math.min((i + 1) * MAX_PACKET_SIZE,
-					 data.length);
-	    byte[] packetData = Arrays.copyOfRange(data, start, end);
-	    byte[] packet     = createPacket(destinationAddress, packetData);
+	// An unreadable header leaves nothing that follows trustworthy.
+	int headerSize = CompactHeader.headerSize(buffer);
+	if (headerSize == 0) {
+	    return null;
+	}
+	int dataLength = (headerSize > 0 ? CompactHeader.dataLength(buffer) : -1);
+	if (headerSize < 0 ||
+	    headerSize >= bytesPerHeader ||
+	    dataLength > MAX_DATAGRAM_SIZE - bytesPerHeader) {
+	    buffer.clear();
+	    return null;
+	}
 
-	    // Choose the data link layer through which to route.
-	    DataLinkLayer dataLink = route(destinationAddress);
+	if (headerSize + dataLength > buffer.size()) {
+	    return null;
+	}
+	int    start  = bytesPerHeader - headerSize;
+	byte[] packet = new byte[bytesPerHeader + dataLength];
+	buffer.remove(packet, start, headerSize + dataLength);
+	CompactHeader.decode(packet, start);
 
-	    // Send the packet.
-	    dataLink.send(packet);
+	return packet;
 
-	    if (debug) {
-		System.err.printf("Address %d sent packet:\n\t%s\n",
-				  address,
-				  bytesToString(packet));
-	    }
-	    
-	}
-	
-    } // send ()
+    } // extractCompactPacket ()
     // =========================================================================
 
 
 
     // =========================================================================
     /**
-     * Create a single packet containing the given data, with header that marks
-     * the source and destination hosts.
+     * Given a received packet, process it.  If the destination for the packet
+     * is this host, then deliver its data to the client layer.  If the
+     * destination is another host, route and send the packet.
      *
-     * @param destination The address to which this packet is sent.
-     * @param data        The data to send.
-     * @return the sequence of bytes that comprises the packet.
+     * @param packet The received packet to process.
      */
-    abstract protected byte[] createPacket (int destination, byte[] data);
+    abstract protected void processPacket (byte[] packet);
     // =========================================================================
 
 
 
     // =========================================================================
     /**
-     * Choose the link through which to send a packet given its destination.
+     * Given a packet received on a particular link, process it.  By default,
+     * the link is ignored.
      *
-     * @param destination The address to which this packet is being sent.
+     * @param dataLink The link on which the packet arrived.
+     * @param packet   The received packet to process.
      */
-    abstract protected DataLinkLayer route (int destination);
+    protected void processPacket (DataLinkLayer dataLink, byte[] packet) {
+
+	processPacket(packet);
+
+    } // processPacket ()
     // =========================================================================
 
 
 
     // =========================================================================
     /**
-     * Examine a buffer to see if it's data can be extracted as a packet.
+     * Indicate whether this layer can route packets to groups; by default, it
+     * cannot.
      *
-     * @param buffer The receive-buffer to be examined.
-     * @return the packet extracted packet if a whole one is present in the
-     *         buffer; <code>null</code> otherwise.
+     * @return <code>true</code> if it can.
      */
-    abstract protected byte[] extractPacket (Queue<Byte> buffer);
+    protected boolean routesGroups () {
+
+	return false;
+
+    } // routesGroups ()
     // =========================================================================
 
 
 
     // =========================================================================
     /**
-     * Given a received packet, process it.  If the destination for the packet
-     * is this host, then deliver its data to the client layer.  If the
-     * destination is another host, route and send the packet.
-     *
-     * @param packet The received packet to process.
+     * Respond to this host joining or leaving a group.  Called on the
+     * client's thread; by default, does nothing.
      */
-    abstract protected void processPacket (byte[] packet);
+    protected void groupsChanged () {}
     // =========================================================================
-    
+
+
+
+    // =========================================================================
+    /**
+     * Perform any periodic work, such as exchanging routing information.
+     * Called on each pass through the event loop; by default, does nothing.
+     */
+    protected void checkTimeout () {}
+    // =========================================================================
+
 
 
     // =========================================================================
@@ -329,16 +1239,38 @@ public abstract class NetworkLayer {
      */
     public void receive (DataLinkLayer dataLink, byte[] data) {
 
-	Queue<Byte> buffer = receiveBuffers.get(dataLink);
+	receiveBuffers.get(dataLink).add(data);
 
-	for (int i = 0; i < data.length; i += 1) {
-	    buffer.add(data[i]);
+	if (debug) {
+	    System.err.printf("Address %d received bytes:\n\t%s\n",
+			      address,
+			      bytesToString(data));
 	}
 
+    } // receive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Receive part of an array of bytes from a data link layer, buffering
+     * them for processing.  The bytes are copied, so the caller may reuse the
+     * array.
+     *
+     * @param dataLink The link from which this data was received.
+     * @param data     The array holding the data received.
+     * @param offset   The position of the first byte received.
+     * @param length   The number of bytes received.
+     */
+    public void receive (DataLinkLayer dataLink, byte[] data, int offset, int length) {
+
+	receiveBuffers.get(dataLink).add(data, offset, length);
+
 	if (debug) {
 	    System.err.printf("Address %d received bytes:\n\t%s\n",
 			      address,
-			      bytesToString(data));
+			      bytesToString(Arrays.copyOfRange(data, offset, offset + length)));
 	}
 
     } // receive ()
@@ -432,6 +1364,154 @@ public abstract class NetworkLayer {
 
 
 
+    // =========================================================================
+    /**
+     * Convert the low 16 bits of an int into an array of bytes.
+     *
+     * @param data The value to convert.
+     * @return an array of the two bytes taken from the value.
+     */
+    public static byte[] shortToBytes (int data) {
+
+	return new byte[] {
+	    (byte)((data >> 8) & 0xff),
+	    (byte)((data >> 0) & 0xff)
+	};
+
+    } // shortToBytes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide this host's MTU.
+     *
+     * @return the largest packet, header included, its links may carry.
+     */
+    public int getMtu () {
+
+	return mtu;
+
+    } // getMtu ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the traffic class of the data this host sends by default.
+     *
+     * @return the class.
+     */
+    public int getTrafficClass () {
+
+	return trafficClass;
+
+    } // getTrafficClass ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the MTU of a host: the largest packet, header included, that
+     * its links may carry.  Set for all hosts with <code>-Dmtu=</code><i>n</i>
+     * and for one with <code>-Dmtu.</code><i>host</i><code>=</code><i>n</i>.
+     *
+     * @param hostname The name of the host.
+     * @return its MTU.
+     * @throws RuntimeException if the MTU is too small to carry any data.
+     */
+    public static int mtu (String hostname) {
+
+	int mtu = Integer.getInteger("mtu." + hostname, DEFAULT_MTU);
+	if (mtu <= bytesPerHeader || mtu > MAX_DATAGRAM_SIZE) {
+	    throw new RuntimeException("Invalid MTU " + mtu + " for " + hostname);
+	}
+	return mtu;
+
+    } // mtu ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read an int from within an array of bytes.
+     *
+     * @param data   The array of bytes.
+     * @param offset The index of the first of the int's bytes.
+     * @return the int value.
+     */
+    public static int readInt (byte[] data, int offset) {
+
+	return ((data[offset]     & 0xff) << 24 |
+		(data[offset + 1] & 0xff) << 16 |
+		(data[offset + 2] & 0xff) << 8  |
+		(data[offset + 3] & 0xff));
+
+    } // readInt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read an unsigned 16-bit value from within an array of bytes.
+     *
+     * @param data   The array of bytes.
+     * @param offset The index of the first of the value's bytes.
+     * @return the value, from 0 to 65535.
+     */
+    public static int readShort (byte[] data, int offset) {
+
+	return ((data[offset]     & 0xff) << 8 |
+		(data[offset + 1] & 0xff));
+
+    } // readShort ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write an int into an array of bytes, in place.
+     *
+     * @param data   The array of bytes.
+     * @param offset The index at which to write the int's first byte.
+     * @param value  The int value.
+     */
+    public static void writeInt (byte[] data, int offset, int value) {
+
+	data[offset]     = (byte)(value >>> 24);
+	data[offset + 1] = (byte)(value >>> 16);
+	data[offset + 2] = (byte)(value >>> 8);
+	data[offset + 3] = (byte)value;
+
+    } // writeInt ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Write the low 16 bits of an int into an array of bytes, in place.
+     *
+     * @param data   The array of bytes.
+     * @param offset The index at which to write the value's first byte.
+     * @param value  The value.
+     */
+    public static void writeShort (byte[] data, int offset, int value) {
+
+	data[offset]     = (byte)(value >>> 8);
+	data[offset + 1] = (byte)value;
+
+    } // writeShort ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Provide the network address of this host.
@@ -475,10 +1555,56 @@ public abstract class NetworkLayer {
     protected Map<Integer, DataLinkLayer>      dataLinkLayers;
 
     /** The buffers of received data, organized per data link. */
-    protected Map<DataLinkLayer, Queue<Byte> > receiveBuffers;
+    protected Map<DataLinkLayer, ByteRing>     receiveBuffers;
+
+    /** The weight of the link to each neighbor, keyed by host address. */
+    protected Map<Integer, Integer>            linkWeights;
+
+    /**
+     * The link to each neighbor, indexed by host address; <code>null</code>
+     * for other hosts.  Rebuilt on each attachment, never modified.
+     */
+    protected volatile DataLinkLayer[]         linksByAddress = new DataLinkLayer[0];
+
+    /** The data link layers, as an array for the event loop to step through. */
+    private DataLinkLayer[]                    attachedLinks = new DataLinkLayer[0];
+
+    /** When expired reassemblies and reorder gaps were last sought, in ms. */
+    private long                               lastExpiry;
 
     /** Whether to continue the event loop. */
-    protected boolean                          doEventLoop;
+    protected volatile boolean                 doEventLoop;
+
+    /** The packets waiting to be passed to each link. */
+    protected Map<DataLinkLayer, PacketScheduler> outputQueues;
+
+    /** The traffic class of the data this host sends. */
+    protected int                              trafficClass;
+
+    /** The MTU of this host, and of each of its links. */
+    protected int                              mtu;
+    protected Map<DataLinkLayer, Integer>      linkMtus;
+
+    /**
+     * The packets being reassembled from fragments, keyed by source address
+     * and identification, in order of their first fragment's arrival.
+     */
+    private LinkedHashMap<Long, Reassembly>    reassemblies;
+
+    /** The last sequence number given in each flow sent, keyed by <code>Host.flowKey()</code>. */
+    private Map<Long, AtomicInteger>           nextSequences;
+
+    /** The reorder buffer of each flow received, keyed likewise. */
+    private Map<Long, ReorderBuffer>           reorderBuffers;
+
+    /** The groups, other than every host's, of which this host is a member. */
+    protected Set<Integer>                     groups;
+
+    /** The identification to give the next packet this host creates. */
+    private final AtomicInteger                nextIdentification = new AtomicInteger();
+
+    /** The number of packets dropped here for reaching their hop limit. */
+    protected LongAdder                        packetsExpired;
     // =========================================================================
 
 
@@ -486,11 +1612,167 @@ public abstract class NetworkLayer {
     // =========================================================================
     // CLASS DATA MEMBERS
 
-    /** The maximum number of original data bytes that a frame may contain. */
-    public static final int     MAX_PACKET_SIZE = 32;
+    /**
+     * The number of data bytes carried by each packet on links of the default
+     * MTU.
+     */
+    public static final int     MAX_PACKET_SIZE   = 32;
+
+    /** The offset into the header for the length. */
+    public static final int     lengthOffset      = 0;
+
+    /** The offset into the header for the destination address. */
+    public static final int     destinationOffset = lengthOffset + Integer.BYTES;
+
+    /** The offset into the header for the source address. */
+    public static final int     sourceOffset      = destinationOffset + Integer.BYTES;
+
+    /** The offset into the header for the hop limit. */
+    public static final int     hopLimitOffset    = sourceOffset + Integer.BYTES;
+
+    /** The offset into the header for the identification of the packet. */
+    public static final int     identificationOffset = hopLimitOffset + 1;
+
+    /**
+     * The offset into the header for the fragment field: the offset of the
+     * fragment's data within its packet's data, and whether more fragments
+     * follow.  It is zero for a packet that is not a fragment.
+     */
+    public static final int     fragmentOffset    = identificationOffset + 2;
+
+    /** The offset into the header for the traffic class. */
+    public static final int     trafficClassOffset = fragmentOffset + Integer.BYTES;
+
+    /**
+     * The offsets into the header for the ports at the source and
+     * destination, which name the flow to which the packet belongs.  Port 0
+     * is the host's default flow.
+     */
+    public static final int     sourcePortOffset      = trafficClassOffset + 1;
+    public static final int     destinationPortOffset = sourcePortOffset + 2;
+
+    /**
+     * The offset into the header for the packet's sequence number within its
+     * flow, by which the destination puts the flow's packets back in order.
+     * It is zero for packets that are not sequenced.
+     */
+    public static final int     sequenceOffset    = destinationPortOffset + 2;
+
+    /** How many total bytes per header. */
+    public static final int     bytesPerHeader    = sequenceOffset + Integer.BYTES;
+
+    /** The largest port number. */
+    public static final int     MAX_PORT          = 0xffff;
+
+    /** The parts of the fragment field. */
+    public static final int     MORE_FRAGMENTS       = 0x80000000;
+    public static final int     FRAGMENT_OFFSET_MASK = 0x7fffffff;
+
+    /**
+     * Whether to send headers in compact form (see <code>CompactHeader</code>).
+     * Either form is accepted on receipt.  MTUs are measured against the
+     * fixed form.
+     */
+    public static final boolean compactHeaders    = Boolean.getBoolean("compactHeaders");
+
+    /** The largest packet, header included, that may be sent before fragmenting. */
+    public static final int     MAX_DATAGRAM_SIZE = 65535;
+
+    /**
+     * The MTU of hosts for which none is given: room for a header and
+     * <code>MAX_PACKET_SIZE</code> data bytes.
+     */
+    public static final int     DEFAULT_MTU
+	= Integer.getInteger("mtu", bytesPerHeader + MAX_PACKET_SIZE);
+
+    /**
+     * Whether packets sent by clients are sequenced and put back in order at
+     * their destination: by default, only without a transport layer, which
+     * orders its own segments.  Set with <code>-Dreorder=</code>.
+     */
+    public static final boolean sequenced
+	= Boolean.parseBoolean(System.getProperty("reorder",
+						  String.valueOf(!TransportLayer.enabled)));
+
+    /** The most packets a host reassembles at once. */
+    public static final int     MAX_REASSEMBLIES  = 64;
+
+    /** How long (in ms) a packet's fragments may take to arrive. */
+    public static final long    REASSEMBLY_TIMEOUT
+	= Long.getLong("reassembly.timeout", 2000);
+
+    /** How often (in ms) to seek expired reassemblies and reorder gaps. */
+    private static final long   EXPIRY_INTERVAL = 10;
+
+    /**
+     * How many times a packet may be forwarded, less one, before it is
+     * dropped.  Set with <code>-Dhops=</code><i>n</i>, from 1 to 255.
+     */
+    public static final int     HOP_LIMIT
+	= Math.max(1, Math.min(255, Integer.getInteger("hops", 64)));
+
+    /**
+     * The destination address of control packets, which are exchanged only
+     * between neighbors and never delivered to a client.  Host addresses are
+     * never negative.
+     */
+    public static final int     CONTROL_ADDRESS   = -1;
+
+    /**
+     * The address of group 0, of which every host is a member; the address of
+     * each other group adds its number.  Host addresses are far below it.
+     */
+    public static final int     GROUP_ADDRESS_BASE = 0x40000000;
+    public static final int     BROADCAST_GROUP    = 0;
+
+    /** The largest group number. */
+    public static final int     MAX_GROUP          = 0xffff;
+
+    /**
+     * The traffic classes of control packets and, unless given for a host
+     * with <code>-Dclass.</code><i>host</i><code>=</code><i>n</i>, of data.
+     */
+    public static final int     CONTROL_CLASS     = 0;
+    public static final int     DATA_CLASS        = 1;
+
+    /**
+     * The type of packet scheduler that orders each link's output queue, set
+     * with <code>-Dscheduler=</code>: <code>Fifo</code>,
+     * <code>Priority</code>, <code>DeficitRoundRobin</code> or
+     * <code>WeightedFair</code>.
+     */
+    public static final String  SCHEDULER
+	= System.getProperty("scheduler", "Fifo");
 
     /** Whether to emit debugging information. */
-    public static final boolean debug           = false;
+    public static final boolean debug             = false;
+
+    /** Counts of packet events across all network layers. */
+    protected static final LongAdder packetsSent
+	= Statistics.counter("network.packetsSent");
+    protected static final LongAdder packetsForwarded
+	= Statistics.counter("network.packetsForwarded");
+    protected static final LongAdder packetsDelivered
+	= Statistics.counter("network.packetsDelivered");
+
+    /** The header and data bytes passed to links, for measuring goodput. */
+    protected static final LongAdder headerBytesSent
+	= Statistics.counter("network.headerBytesSent");
+    protected static final LongAdder dataBytesSent
+	= Statistics.counter("network.dataBytesSent");
+
+    /** Counts of fragmentation and reassembly events. */
+    protected static final LongAdder fragmentsCreated
+	= Statistics.counter("network.fragmentsCreated");
+    protected static final LongAdder datagramsReassembled
+	= Statistics.counter("network.packetsReassembled");
+    protected static final LongAdder reassembliesTimedOut
+	= Statistics.counter("network.reassembliesTimedOut");
+    protected static final LongAdder reassembliesEvicted
+	= Statistics.counter("network.reassembliesEvicted");
+
+    /** The histogram of hops taken by delivered packets, filled in as used. */
+    private static final LongAdder[] hopCounts = new LongAdder[HOP_LIMIT + 1];
    // =========================================================================
 
 
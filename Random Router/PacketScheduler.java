@@ -0,0 +1,466 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   PacketScheduler.java
+ * @date   October 2026
+ *
+ * An output queue for one link, which holds packets until the link is ready
+ * for them and chooses the order in which they go.  Each packet belongs to a
+ * traffic class, from 0 (the most urgent) to <code>NUM_CLASSES - 1</code>,
+ * given in its header.  A subclass decides which class is served next; this
+ * class keeps the packets' arrival times and, as each leaves, counts per class
+ * how many packets have left and how long they waited.
+ *
+ * The queue is bounded, and a <code>QueuePolicy</code>, chosen with
+ * <code>-Dqueue=</code>, decides which packets it drops: <code>DropTail</code>
+ * (the default), <code>RED</code> or <code>CoDel</code>.  Every packet's
+ * sojourn time, from arrival to departure or drop at the head, is tallied in
+ * a histogram of powers of two.
+ *
+ * Each queue also keeps, for adaptive routing, an exponentially weighted
+ * average of its packets' sojourn times and of the time the link takes to
+ * drain each byte, the latter from the gaps between departures while packets
+ * are waiting.  From these and the bytes queued, it estimates how long a
+ * packet arriving now would wait.
+ *
+ * Packets are added by whichever thread sends or forwards them, and removed by
+ * the host's event loop, so every public method is synchronized.
+ */
+public abstract class PacketScheduler {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create the requested scheduler type and return it.
+     *
+     * @param  type The subclass of which to create an instance.
+     * @return The newly created scheduler.
+     * @throws RuntimeException if the given type is not a valid subclass.
+     */
+    public static PacketScheduler create (String type) {
+
+	// Look up the class by name.
+	String   className      = type + "Scheduler";
+	Class<?> schedulerClass = null;
+	try {
+	    schedulerClass = Class.forName(className);
+	} catch (ClassNotFoundException e) {
+	    throw new RuntimeException("Unknown scheduler subclass " + className);
+	}
+
+	// Make one of these objects, and then see if it really is a
+	// PacketScheduler subclass.
+	Object o = null;
+	try {
+	    o = schedulerClass.getDeclaredConstructor().newInstance();
+	} catch (NoSuchMethodException e) {
+	    throw new RuntimeException("Could not call constructor for " + className);
+	} catch (InstantiationException e) {
+	    throw new RuntimeException("Could not instantiate " + className);
+	} catch (IllegalAccessException e) {
+	    throw new RuntimeException("Could not access " + className);
+	} catch (InvocationTargetException e) {
+	    throw new RuntimeException("Could not invoke target on " + className);
+	}
+	try {
+	    return (PacketScheduler)o;
+	} catch (ClassCastException e) {
+	    throw new RuntimeException(className +
+				       " is not a subclass of PacketScheduler");
+	}
+
+    } // create ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Create the drop policy.
+     */
+    public PacketScheduler () {
+
+	policy         = QueuePolicy.create(QUEUE_POLICY);
+	packetsDropped = new LongAdder();
+
+    } // PacketScheduler ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Name this queue after its link, registering its drop counter for
+     * reporting.
+     *
+     * @param name The name of the link.
+     */
+    public void setName (String name) {
+
+	packetsDropped = Statistics.counter("queue." + name + ".packetsDropped");
+
+    } // setName ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a packet to the queue, if the policy admits it.
+     *
+     * @param packet       The packet.
+     * @param trafficClass Its class; out-of-range classes are taken as the
+     *                     least urgent.
+     * @return <code>true</code> if the packet was queued; <code>false</code>
+     *         if it was dropped.
+     */
+    public synchronized boolean enqueue (byte[] packet, int trafficClass) {
+
+	long now = System.nanoTime();
+	if (!policy.admit(bytes, packet.length, now)) {
+	    packetsDropped.increment();
+	    droppedOnArrival.increment();
+	    return false;
+	}
+
+	if (trafficClass < 0 || trafficClass >= NUM_CLASSES) {
+	    trafficClass = NUM_CLASSES - 1;
+	}
+	add(new QueuedPacket(packet, trafficClass, now));
+	size  += 1;
+	bytes += packet.length;
+
+	return true;
+
+    } // enqueue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove the packet that should be sent next, dropping any ahead of it
+     * that the policy rejects.
+     *
+     * @return the packet; <code>null</code> if the queue is empty.
+     */
+    public synchronized byte[] dequeue () {
+
+	long now = System.nanoTime();
+	while (size > 0) {
+
+	    QueuedPacket queued = remove();
+	    size  -= 1;
+	    bytes -= queued.packet.length;
+
+	    long sojourn = now - queued.enqueueTime;
+	    sojournCount(sojourn / 1000).increment();
+	    if (policy.dropOnDeparture(sojourn, bytes, now)) {
+		packetsDropped.increment();
+		droppedOnDeparture.increment();
+		continue;
+	    }
+
+	    packetsScheduled[queued.trafficClass].increment();
+	    microsQueued[queued.trafficClass].add(sojourn / 1000);
+	    measure(queued.packet.length, sojourn, now);
+	    return queued.packet;
+
+	}
+	return null;
+
+    } // dequeue ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of packets queued.
+     *
+     * @return the size.
+     */
+    public synchronized int size () {
+
+	return size;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of bytes queued.
+     *
+     * @return the total size of the packets queued.
+     */
+    public synchronized int bytes () {
+
+	return bytes;
+
+    } // bytes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the recent average time packets have waited in this queue.
+     *
+     * @return the exponentially weighted average sojourn time, in ns.
+     */
+    public synchronized long averageSojourn () {
+
+	return averageSojourn;
+
+    } // averageSojourn ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Estimate how long a packet arriving now would wait: the bytes queued at
+     * the link's recent rate of draining them.
+     *
+     * @return the estimated wait, in ns; 0 until the rate has been measured.
+     */
+    public synchronized long estimatedWait () {
+
+	return bytes * nanosPerByte;
+
+    } // estimatedWait ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Estimate how long the link takes to drain a number of bytes, at its
+     * recent rate.
+     *
+     * @param length The number of bytes.
+     * @return the estimated time, in ns; 0 until the rate has been measured.
+     */
+    public synchronized long estimatedWait (int length) {
+
+	return length * nanosPerByte;
+
+    } // estimatedWait ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hold a packet in the subclass's own structure.
+     *
+     * @param queued The packet.
+     */
+    abstract protected void add (QueuedPacket queued);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose, and take out of the subclass's structure, the next packet to
+     * send.  Called only when at least one packet is held.
+     *
+     * @return the packet.
+     */
+    abstract protected QueuedPacket remove ();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A packet waiting to be sent.
+     */
+    protected static class QueuedPacket {
+
+	QueuedPacket (byte[] packet, int trafficClass, long enqueueTime) {
+	    this.packet       = packet;
+	    this.trafficClass = trafficClass;
+	    this.enqueueTime  = enqueueTime;
+	}
+
+	final byte[] packet;
+	final int    trafficClass;
+	final long   enqueueTime;
+
+    } // class QueuedPacket
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Fold a departing packet into the averages.  If the queue was not empty
+     * when the previous packet left, the link was busy throughout, so the gap
+     * since measures how long it took to drain the previous packet.
+     *
+     * @param length  The departing packet's size.
+     * @param sojourn How long it waited, in ns.
+     * @param now     The time, in ns.
+     */
+    private void measure (int length, long sojourn, long now) {
+
+	averageSojourn = (7 * averageSojourn + sojourn) / 8;
+	if (backlogged && lastLength > 0) {
+	    long sample  = (now - lastDeparture) / lastLength;
+	    nanosPerByte = (nanosPerByte == 0 ? sample : (7 * nanosPerByte + sample) / 8);
+	}
+	lastDeparture = now;
+	lastLength    = length;
+	backlogged    = (size > 0);
+
+    } // measure ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the histogram counter of packets whose sojourn time was in the
+     * same power of two as the given time.
+     *
+     * @param micros The sojourn time, in us.
+     */
+    private static LongAdder sojournCount (long micros) {
+
+	int       bucket  = 64 - Long.numberOfLeadingZeros(micros);
+	LongAdder counter = sojournCounts[bucket];
+	if (counter == null) {
+	    counter = Statistics.counter(String.format("queue.sojournUnderUs.%010d",
+						       1L << bucket));
+	    sojournCounts[bucket] = counter;
+	}
+	return counter;
+
+    } // sojournCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The number of packets queued, and their total size in bytes. */
+    private int         size  = 0;
+    private int         bytes = 0;
+
+    /** Which packets to drop. */
+    private QueuePolicy policy;
+
+    /** The packets this queue has dropped. */
+    private LongAdder   packetsDropped;
+
+    /**
+     * The averages of sojourn time, and of the time to drain a byte, in ns;
+     * each 0 until measured.
+     */
+    private long        averageSojourn = 0;
+    private long        nanosPerByte   = 0;
+
+    /**
+     * When the last packet left, its size, and whether others were still
+     * waiting.
+     */
+    private long        lastDeparture  = 0;
+    private int         lastLength     = 0;
+    private boolean     backlogged     = false;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The number of traffic classes. */
+    public static final int   NUM_CLASSES = 4;
+
+    /**
+     * The share of the link each class is due under weighted schedulers, as
+     * <code>-Dscheduler.weights=8,4,2,1</code>.
+     */
+    public static final int[] WEIGHTS     = weights(System.getProperty("scheduler.weights",
+									"8,4,2,1"));
+
+    /** The type of drop policy, set with <code>-Dqueue=</code>. */
+    public static final String QUEUE_POLICY = System.getProperty("queue", "DropTail");
+
+    /** The packets dropped by every queue, as they arrived and as they left. */
+    private static final LongAdder droppedOnArrival
+	= Statistics.counter("queue.droppedOnArrival");
+    private static final LongAdder droppedOnDeparture
+	= Statistics.counter("queue.droppedOnDeparture");
+
+    /** The histogram of sojourn times, filled in as used. */
+    private static final LongAdder[] sojournCounts = new LongAdder[65];
+
+    /** Per class, the packets sent and the total time (in us) they waited. */
+    private static final LongAdder[] packetsScheduled = new LongAdder[NUM_CLASSES];
+    private static final LongAdder[] microsQueued     = new LongAdder[NUM_CLASSES];
+    static {
+	for (int c = 0; c < NUM_CLASSES; c += 1) {
+	    packetsScheduled[c] = Statistics.counter("scheduler.class" + c + ".packets");
+	    microsQueued[c]     = Statistics.counter("scheduler.class" + c + ".queuedUs");
+	}
+    }
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Parse a list of class weights, one per class, each at least 1.
+     *
+     * @throws RuntimeException if the list is malformed.
+     */
+    private static int[] weights (String list) {
+
+	String[] parts = list.split(",");
+	if (parts.length != NUM_CLASSES) {
+	    throw new RuntimeException("Expected " + NUM_CLASSES +
+				       " scheduler weights: " + list);
+	}
+	int[] weights = new int[NUM_CLASSES];
+	for (int c = 0; c < NUM_CLASSES; c += 1) {
+	    try {
+		weights[c] = Integer.parseInt(parts[c].trim());
+	    } catch (NumberFormatException e) {
+		throw new RuntimeException("Invalid scheduler weight " + parts[c]);
+	    }
+	    if (weights[c] < 1) {
+		throw new RuntimeException("Invalid scheduler weight " + parts[c]);
+	    }
+	}
+	return weights;
+
+    } // weights ()
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PacketScheduler
+// =============================================================================
@@ -3,6 +3,7 @@
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
 // =============================================================================
 
 
@@ -95,6 +96,7 @@ public class PhysicalLayer {
      */
     public void send (boolean bit) {
 
+        bitsSent.increment();
         medium.transmit(this, bit);
 
     } // send ()
@@ -111,6 +113,7 @@ public class PhysicalLayer {
      */
     public void receive (boolean bit) {
 
+        bitsReceived.increment();
         bitQueue.offer(bit);
         
     } // deliver ()
@@ -146,6 +149,12 @@ public class PhysicalLayer {
 
     /** A queue of bits that have been received from the medium. */
     private Queue<Boolean> bitQueue;
+
+    /** The number of bits sent and received by all physical layers. */
+    private static final LongAdder bitsSent
+	= Statistics.counter("physical.bitsSent");
+    private static final LongAdder bitsReceived
+	= Statistics.counter("physical.bitsReceived");
     // ===============================================================
 
 
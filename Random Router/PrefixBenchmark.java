@@ -0,0 +1,287 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Measure longest-prefix-match lookup in <code>PrefixTrie</code>: the time to
+ * build a table, the lookups per second, and the heap used per route.  Two
+ * tables are measured:
+ *
+ * <ul>
+ *   <li>routes to random prefixes, of lengths mixed as in a backbone table
+ *       (mostly /24, with shorter aggregates and some host routes); and</li>
+ *   <li>the forwarding table of a host with 16 links in a network of as many
+ *       hosts as routes, each area beyond one link but with some subnets and
+ *       hosts beyond others, summarized by hierarchical address as
+ *       <code>RoutingNetworkLayer</code> does, against the flat table of a
+ *       link per host.</li>
+ * </ul>
+ *
+ * Run as <code>java PrefixBenchmark [routes] [lookups]</code>; by default,
+ * 1000000 of each.  Heap figures are only as precise as the collector's
+ * accounting, so a heap of a few hundred MB (<code>-Xmx512m</code>) with
+ * nothing else running gives the steadiest figures.
+ *
+ * @file   PrefixBenchmark.java
+ * @date   October 2026
+ */
+public class PrefixBenchmark {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The entry point.
+     *
+     * @param args Optionally, the number of routes, then the number of
+     *             lookups per measurement.
+     */
+    public static void main (String[] args) {
+
+	int routes  = (args.length > 0 ? Integer.parseInt(args[0]) : 1000000);
+	int lookups = (args.length > 1 ? Integer.parseInt(args[1]) : 1000000);
+
+	DataLinkLayer[] links = new DataLinkLayer[DEGREE];
+	for (int l = 0; l < DEGREE; l += 1) {
+	    links[l] = DataLinkLayer.create("Dumb", new PhysicalLayer(Medium.create("Perfect")));
+	}
+
+	measureRandom(routes, lookups, links);
+	measureHierarchical(routes, lookups, links);
+
+	// Keep the chosen links live.
+	if (sink == 0x5eed) {
+	    System.out.println();
+	}
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build and time a table of routes to random prefixes.
+     */
+    private static void measureRandom (int routes, int lookups, DataLinkLayer[] links) {
+
+	Random random   = new Random(11);
+	int[]  prefixes = new int[routes];
+	int[]  lengths  = new int[routes];
+	for (int r = 0; r < routes; r += 1) {
+	    int mix     = random.nextInt(100);
+	    lengths[r]  = (mix < 60 ? 24
+			   : mix < 80 ? 16 + random.nextInt(8)
+			   : mix < 90 ? 8  + random.nextInt(8)
+			   :            32);
+	    prefixes[r] = random.nextInt();
+	}
+
+	long before = usedHeap();
+	long start  = System.nanoTime();
+	PrefixTrie<DataLinkLayer> trie = new PrefixTrie<DataLinkLayer>(routes);
+	for (int r = 0; r < routes; r += 1) {
+	    trie.insert(prefixes[r], lengths[r], links[r % DEGREE]);
+	}
+	trie.trim();
+	long built  = System.nanoTime() - start;
+	long heap   = usedHeap() - before;
+
+	// Three lookups in four fall within a route, the rest anywhere.
+	int[] addresses = new int[ADDRESSES];
+	for (int i = 0; i < ADDRESSES; i += 1) {
+	    int r        = random.nextInt(routes);
+	    addresses[i] = (random.nextInt(4) == 0
+			    ? random.nextInt()
+			    : prefixes[r] ^ (int)((random.nextInt() & 0xffffffffL) >>> lengths[r]));
+	}
+	timeTrie(trie, addresses, lookups);
+	long time = timeTrie(trie, addresses, lookups);
+
+	System.out.printf("random prefixes:  %d routes, %d nodes, built in %.0f ns/route\n",
+			  trie.size(),
+			  trie.nodes(),
+			  (double)built / routes);
+	System.out.printf("  trie:  %7.1f ns/lookup  %6.2f M lookups/s  %5.1f bytes/route\n",
+			  (double)time / lookups,
+			  lookups * 1e3 / time,
+			  (double)heap / trie.size());
+
+    } // measureRandom ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Build and time a host's forwarding table, summarized and flat.
+     */
+    private static void measureHierarchical (int hosts, int lookups, DataLinkLayer[] links) {
+
+	// Hosts not given hierarchical addresses split their dense addresses
+	// into area, subnet and host.  Each area lies beyond one link, but one
+	// subnet in eight and one host in a hundred beyond another.
+	Random random = new Random(13);
+	long   before = usedHeap();
+	DataLinkLayer[] table = new DataLinkLayer[hosts];
+	for (int address = 0; address < hosts; address += 1) {
+	    int area   = address >>> (AddressRegistry.SUBNET_BITS + AddressRegistry.HOST_BITS);
+	    int subnet = address >>> AddressRegistry.HOST_BITS;
+	    int link   = (subnet % 8 == 7 ? subnet : area) % DEGREE;
+	    if (random.nextInt(100) == 0) {
+		link = random.nextInt(DEGREE);
+	    }
+	    table[address] = links[link];
+	}
+	long flatHeap = usedHeap() - before;
+
+	long start = System.nanoTime();
+	PrefixTrie<DataLinkLayer> trie = RoutingNetworkLayer.summarize(table);
+	long built = System.nanoTime() - start;
+	long heap  = usedHeap() - before - flatHeap;
+
+	int[] destinations = new int[ADDRESSES];
+	for (int i = 0; i < ADDRESSES; i += 1) {
+	    destinations[i] = random.nextInt(hosts);
+	}
+	for (int i = 0; i < ADDRESSES; i += 1) {
+	    if (trie.lookup(AddressRegistry.hierarchical(destinations[i])) != table[destinations[i]]) {
+		throw new RuntimeException("Summarized route differs for " + destinations[i]);
+	    }
+	}
+	timeSummarized(trie, destinations, lookups);
+	timeFlat(table, destinations, lookups);
+	long summarized = timeSummarized(trie, destinations, lookups);
+	long flat       = timeFlat(table, destinations, lookups);
+
+	System.out.printf("hierarchical:  %d hosts summarized as %d routes in %.0f ns/host\n",
+			  hosts,
+			  trie.size(),
+			  (double)built / hosts);
+	System.out.printf("  trie:  %7.1f ns/lookup  %6.2f M lookups/s  %5.1f bytes/route  " +
+			  "%5.2f bytes/host\n",
+			  (double)summarized / lookups,
+			  lookups * 1e3 / summarized,
+			  (double)heap / trie.size(),
+			  (double)heap / hosts);
+	System.out.printf("  flat:  %7.1f ns/lookup  %6.2f M lookups/s  %5.1f bytes/route  " +
+			  "%5.2f bytes/host\n",
+			  (double)flat / lookups,
+			  lookups * 1e3 / flat,
+			  (double)flatHeap / hosts,
+			  (double)flatHeap / hosts);
+
+    } // measureHierarchical ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Time lookups of addresses in a trie.
+     *
+     * @return the total time taken, in nanoseconds.
+     */
+    private static long timeTrie (PrefixTrie<DataLinkLayer> trie,
+				  int[]                     addresses,
+				  int                       lookups) {
+
+	long start = System.nanoTime();
+	for (int i = 0; i < lookups; i += 1) {
+	    DataLinkLayer link = trie.lookup(addresses[i & (ADDRESSES - 1)]);
+	    sink += System.identityHashCode(link);
+	}
+	return System.nanoTime() - start;
+
+    } // timeTrie ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Time route lookups as <code>RoutingNetworkLayer</code> makes them from
+     * summarized routes.
+     *
+     * @return the total time taken, in nanoseconds.
+     */
+    private static long timeSummarized (PrefixTrie<DataLinkLayer> trie,
+					int[]                     destinations,
+					int                       lookups) {
+
+	long start = System.nanoTime();
+	for (int i = 0; i < lookups; i += 1) {
+	    int           destination = destinations[i & (ADDRESSES - 1)];
+	    DataLinkLayer link        = trie.lookup(AddressRegistry.hierarchical(destination));
+	    sink += System.identityHashCode(link);
+	}
+	return System.nanoTime() - start;
+
+    } // timeSummarized ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Time route lookups in a flat table.
+     *
+     * @return the total time taken, in nanoseconds.
+     */
+    private static long timeFlat (DataLinkLayer[] table, int[] destinations, int lookups) {
+
+	long start = System.nanoTime();
+	for (int i = 0; i < lookups; i += 1) {
+	    DataLinkLayer link = table[destinations[i & (ADDRESSES - 1)]];
+	    sink += System.identityHashCode(link);
+	}
+	return System.nanoTime() - start;
+
+    } // timeFlat ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the heap in use after collecting what can be.
+     *
+     * @return the bytes in use.
+     */
+    private static long usedHeap () {
+
+	Runtime runtime = Runtime.getRuntime();
+	for (int i = 0; i < 3; i += 1) {
+	    System.gc();
+	}
+	return runtime.totalMemory() - runtime.freeMemory();
+
+    } // usedHeap ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The number of links from the host measured. */
+    private static final int DEGREE    = 16;
+
+    /** The number of distinct addresses looked up; a power of two. */
+    private static final int ADDRESSES = 1 << 16;
+
+    /** Accumulates the chosen links, so that choosing them is not elided. */
+    private static long      sink      = 0;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PrefixBenchmark
+// =============================================================================
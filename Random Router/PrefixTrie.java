@@ -0,0 +1,427 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * A table of routes to 32-bit address prefixes, looked up by longest prefix
+ * match.  It is a path-compressed binary trie: each node holds a whole prefix
+ * and its length, so a chain of nodes with one child apiece is never stored,
+ * and a lookup visits at most one node per distinct prefix length along its
+ * path, rather than one per bit.
+ *
+ * Each node is four consecutive ints of one array -- its prefix, its length
+ * and route, and its two children as indices -- so that a route costs a few
+ * bytes rather than objects of its own, and visiting a node touches one cache
+ * line.  Routes name their values by index into a list of the distinct
+ * values, of which a forwarding table has few.  With at most one branch point
+ * added per route, a trie of <i>n</i> routes has fewer than 2<i>n</i> nodes.
+ *
+ * Once built, a trie of many routes may be indexed, in the manner of
+ * Poptrie's direct pointing: for each of the 65536 values of an address's top
+ * 16 bits, the route of the longest matching prefix of at most 16 bits, and
+ * the node at which to continue below them.  A lookup then starts 16 bits
+ * down rather than at the root, skipping the nodes most likely to be out of
+ * cache.
+ *
+ * A trie that is no longer modified may be read by any number of threads.
+ *
+ * @file   PrefixTrie.java
+ * @date   October 2026
+ */
+public class PrefixTrie<V> {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create an empty trie.
+     *
+     * @param capacity The number of routes expected; more may be added.
+     */
+    public PrefixTrie (int capacity) {
+
+	nodes        = new int[NODE_INTS * Math.max(16, 2 * capacity)];
+	values       = new Object[16];
+	valueIndices = new HashMap<Object, Integer>();
+	size         = 0;
+	routes       = 0;
+	valueCount   = 0;
+	root         = NONE;
+	directRoutes = null;
+	directNodes  = null;
+
+    } // PrefixTrie ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a route, replacing any to the same prefix.  Any index is discarded.
+     *
+     * @param prefix The prefix; bits beyond its length are ignored.
+     * @param length The number of leading bits that make up the prefix, from
+     *               0 to 32.
+     * @param value  Where the route leads; not <code>null</code>.
+     * @throws RuntimeException if the length or value is invalid.
+     */
+    public void insert (int prefix, int length, V value) {
+
+	if (length < 0 || length > Integer.SIZE || value == null) {
+	    throw new RuntimeException("Invalid route /" + length);
+	}
+	prefix       &= mask(length);
+	int route     = valueIndex(value) + 1;
+	directRoutes  = null;
+	directNodes   = null;
+
+	if (root == NONE) {
+	    root = newNode(prefix, length, route);
+	    return;
+	}
+
+	int parentSlot = NONE;
+	int node       = root;
+	while (true) {
+
+	    int nodeLength = nodes[node + INFO] & LENGTH_MASK;
+	    int common     = Math.min(Math.min(length, nodeLength),
+				      Integer.numberOfLeadingZeros(prefix ^ nodes[node + KEY]));
+
+	    // The node's prefix begins ours: it is ours, or we go below it.
+	    if (common == nodeLength) {
+		if (length == nodeLength) {
+		    if (nodes[node + INFO] >>> ROUTE_SHIFT == 0) {
+			routes += 1;
+		    }
+		    nodes[node + INFO] = route << ROUTE_SHIFT | length;
+		    return;
+		}
+		int slot = node + LEFT + bit(prefix, nodeLength);
+		if (nodes[slot] == NONE) {
+		    int child   = newNode(prefix, length, route);
+		    nodes[slot] = child;
+		    return;
+		}
+		parentSlot = slot;
+		node       = nodes[slot];
+		continue;
+	    }
+
+	    // Ours begins the node's: it goes above the node.  Otherwise, the
+	    // two part at a new node holding what they share.
+	    int above;
+	    if (common == length) {
+		above = newNode(prefix, length, route);
+	    } else {
+		above = newNode(prefix & mask(common), common, 0);
+		int child = newNode(prefix, length, route);
+		nodes[above + LEFT + bit(prefix, common)] = child;
+	    }
+	    nodes[above + LEFT + bit(nodes[node + KEY], common)] = node;
+	    if (parentSlot == NONE) {
+		root = above;
+	    } else {
+		nodes[parentSlot] = above;
+	    }
+	    return;
+
+	}
+
+    } // insert ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the route to the longest prefix that matches an address.
+     *
+     * @param address The address.
+     * @return where the route leads; <code>null</code> if no prefix matches.
+     */
+    @SuppressWarnings("unchecked")
+    public V lookup (int address) {
+
+	int[] nodes = this.nodes;
+	int   best  = 0;
+	int   node  = root;
+
+	int[] directRoutes = this.directRoutes;
+	int[] directNodes  = this.directNodes;
+	if (directRoutes != null) {
+	    best = directRoutes[address >>> (Integer.SIZE - DIRECT_BITS)];
+	    node = directNodes[address >>> (Integer.SIZE - DIRECT_BITS)];
+	}
+
+	while (node != NONE) {
+	    int info   = nodes[node + INFO];
+	    int length = info & LENGTH_MASK;
+	    if (((address ^ nodes[node + KEY]) & mask(length)) != 0) {
+		break;
+	    }
+	    if (info >>> ROUTE_SHIFT != 0) {
+		best = info >>> ROUTE_SHIFT;
+	    }
+	    if (length == Integer.SIZE) {
+		break;
+	    }
+	    node = nodes[node + LEFT + bit(address, length)];
+	}
+	return (best == 0 ? null : (V)values[best - 1]);
+
+    } // lookup ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Release the space held for nodes not in use and, if the trie holds
+     * <code>DIRECT_MIN_ROUTES</code> or more routes, index it by the top 16
+     * bits of the address.  Call once the trie is built.
+     */
+    public void trim () {
+
+	nodes  = Arrays.copyOf(nodes, NODE_INTS * size);
+	values = Arrays.copyOf(values, valueCount);
+	if (routes < DIRECT_MIN_ROUTES) {
+	    return;
+	}
+
+	int[] routesAbove = new int[1 << DIRECT_BITS];
+	int[] nodesBelow  = new int[1 << DIRECT_BITS];
+	for (int top = 0; top < 1 << DIRECT_BITS; top += 1) {
+	    int address = top << (Integer.SIZE - DIRECT_BITS);
+	    int best    = 0;
+	    int node    = root;
+	    while (node != NONE) {
+		int info   = nodes[node + INFO];
+		int length = info & LENGTH_MASK;
+		if (length > DIRECT_BITS) {
+		    break;
+		}
+		if (((address ^ nodes[node + KEY]) & mask(length)) != 0) {
+		    node = NONE;
+		    break;
+		}
+		if (info >>> ROUTE_SHIFT != 0) {
+		    best = info >>> ROUTE_SHIFT;
+		}
+
+		// A 16-bit prefix covers the whole block, but its children
+		// part by the next bit, so a lookup continues from it.
+		if (length == DIRECT_BITS) {
+		    break;
+		}
+		node = nodes[node + LEFT + bit(address, length)];
+	    }
+	    routesAbove[top] = best;
+	    nodesBelow[top]  = node;
+	}
+	directRoutes = routesAbove;
+	directNodes  = nodesBelow;
+
+    } // trim ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of routes held.
+     *
+     * @return the number of distinct prefixes with a route.
+     */
+    public int size () {
+
+	return routes;
+
+    } // size ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the number of nodes in use, routes and branch points together.
+     *
+     * @return the node count.
+     */
+    public int nodes () {
+
+	return size;
+
+    } // nodes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a node with no children, growing the array if need be.
+     *
+     * @param route The index of the route's value plus one; 0 for none.
+     * @return its index.
+     */
+    private int newNode (int prefix, int length, int route) {
+
+	if (NODE_INTS * (size + 1) > nodes.length) {
+	    nodes = Arrays.copyOf(nodes, Math.max(NODE_INTS * 16, 2 * nodes.length));
+	}
+
+	int node            = NODE_INTS * size;
+	nodes[node + KEY]   = prefix;
+	nodes[node + INFO]  = route << ROUTE_SHIFT | length;
+	nodes[node + LEFT]  = NONE;
+	nodes[node + RIGHT] = NONE;
+	size               += 1;
+	if (route != 0) {
+	    routes += 1;
+	}
+	return node;
+
+    } // newNode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the index of a value in the list of distinct values, adding it
+     * if need be.
+     *
+     * @throws RuntimeException if there are too many distinct values.
+     */
+    private int valueIndex (Object value) {
+
+	Integer index = valueIndices.get(value);
+	if (index == null) {
+	    if (valueCount == MAX_VALUES) {
+		throw new RuntimeException("Too many distinct route values");
+	    }
+	    if (valueCount == values.length) {
+		values = Arrays.copyOf(values, Math.max(16, 2 * values.length));
+	    }
+	    index                = valueCount;
+	    values[valueCount++] = value;
+	    valueIndices.put(value, index);
+	}
+	return index;
+
+    } // valueIndex ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the mask of the given number of leading bits.
+     */
+    private static int mask (int length) {
+
+	return (length == 0 ? 0 : -1 << (Integer.SIZE - length));
+
+    } // mask ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the bit of an address at the given position, counted from the
+     * most significant; the position must be less than 32.
+     */
+    private static int bit (int address, int position) {
+
+	return (address >>> (Integer.SIZE - 1 - position)) & 1;
+
+    } // bit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /**
+     * The nodes, <code>NODE_INTS</code> ints apiece: the prefix; the length
+     * in the low bits, with the route's value index plus one (0 for a branch
+     * point alone) above it; and the index of the child whose next bit is 0,
+     * then 1, each <code>NONE</code> if absent.
+     */
+    private int[]                nodes;
+
+    /** The distinct values of the routes, and the index of each. */
+    private Object[]             values;
+    private Map<Object, Integer> valueIndices;
+
+    /** The number of nodes in use, of those that hold routes, and of values. */
+    private int                  size;
+    private int                  routes;
+    private int                  valueCount;
+
+    /** The index of the root node; <code>NONE</code> if the trie is empty. */
+    private int                  root;
+
+    /**
+     * By the top 16 bits of an address, the route (as in a node) of its
+     * longest match of at most 16 bits, and the node at which to continue;
+     * <code>null</code> if the trie is not indexed.
+     */
+    private int[]                directRoutes;
+    private int[]                directNodes;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The fewest routes for which a trie is indexed. */
+    public static final int DIRECT_MIN_ROUTES = 1 << 14;
+
+    /** The number of leading address bits by which a trie is indexed. */
+    private static final int DIRECT_BITS = 16;
+
+    /** The index standing for no node. */
+    private static final int NONE        = -1;
+
+    /** The layout of a node. */
+    private static final int NODE_INTS   = 4;
+    private static final int KEY         = 0;
+    private static final int INFO        = 1;
+    private static final int LEFT        = 2;
+    private static final int RIGHT       = 3;
+
+    /** The layout of a node's length and route. */
+    private static final int LENGTH_MASK = 0xff;
+    private static final int ROUTE_SHIFT = 8;
+    private static final int MAX_VALUES  = (1 << (Integer.SIZE - ROUTE_SHIFT)) - 1;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PrefixTrie
+// =============================================================================
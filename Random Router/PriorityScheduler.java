@@ -0,0 +1,88 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayDeque;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   PriorityScheduler.java
+ * @date   October 2026
+ *
+ * Strict priority: a packet is sent only when no packet of a more urgent
+ * class is waiting, and packets of one class are sent in order of arrival.
+ * Less urgent classes may starve.  Each operation takes time proportional to
+ * the number of classes, which is fixed.
+ */
+public class PriorityScheduler extends PacketScheduler {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Create an empty queue per class.
+     */
+    public PriorityScheduler () {
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	ArrayDeque<QueuedPacket>[] queues = new ArrayDeque[NUM_CLASSES];
+	for (int c = 0; c < NUM_CLASSES; c += 1) {
+	    queues[c] = new ArrayDeque<QueuedPacket>();
+	}
+	this.queues = queues;
+
+    } // PriorityScheduler ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Hold a packet behind the others of its class.
+     *
+     * @param queued The packet.
+     */
+    protected void add (QueuedPacket queued) {
+
+	queues[queued.trafficClass].add(queued);
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the oldest packet of the most urgent class that has any.
+     *
+     * @return the packet.
+     */
+    protected QueuedPacket remove () {
+
+	for (ArrayDeque<QueuedPacket> queue : queues) {
+	    if (!queue.isEmpty()) {
+		return queue.poll();
+	    }
+	}
+	return null;
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The packets of each class, in order of arrival. */
+    private final ArrayDeque<QueuedPacket>[] queues;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class PriorityScheduler
+// =============================================================================
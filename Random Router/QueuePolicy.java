@@ -0,0 +1,130 @@
+// =============================================================================
+// IMPORTS
+
+import java.lang.reflect.InvocationTargetException;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   QueuePolicy.java
+ * @date   October 2026
+ *
+ * Decides which packets an output queue drops.  A policy may refuse a packet
+ * as it arrives, and may drop a packet as it leaves, having seen how long it
+ * waited.  Whatever the policy, no packet is admitted beyond the queue's
+ * limit of <code>LIMIT</code> bytes, so that memory stays bounded under
+ * overload.
+ *
+ * A policy belongs to one queue, and is called only while that queue's lock
+ * is held.
+ */
+public abstract class QueuePolicy {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create the requested policy type and return it.
+     *
+     * @param  type The subclass of which to create an instance.
+     * @return The newly created policy.
+     * @throws RuntimeException if the given type is not a valid subclass.
+     */
+    public static QueuePolicy create (String type) {
+
+	// Look up the class by name.
+	String   className   = type + "QueuePolicy";
+	Class<?> policyClass = null;
+	try {
+	    policyClass = Class.forName(className);
+	} catch (ClassNotFoundException e) {
+	    throw new RuntimeException("Unknown queue policy subclass " + className);
+	}
+
+	// Make one of these objects, and then see if it really is a
+	// QueuePolicy subclass.
+	Object o = null;
+	try {
+	    o = policyClass.getDeclaredConstructor().newInstance();
+	} catch (NoSuchMethodException e) {
+	    throw new RuntimeException("Could not call constructor for " + className);
+	} catch (InstantiationException e) {
+	    throw new RuntimeException("Could not instantiate " + className);
+	} catch (IllegalAccessException e) {
+	    throw new RuntimeException("Could not access " + className);
+	} catch (InvocationTargetException e) {
+	    throw new RuntimeException("Could not invoke target on " + className);
+	}
+	try {
+	    return (QueuePolicy)o;
+	} catch (ClassCastException e) {
+	    throw new RuntimeException(className +
+				       " is not a subclass of QueuePolicy");
+	}
+
+    } // create ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decide whether to admit an arriving packet.  By default, admit it if it
+     * fits within the limit.
+     *
+     * @param queuedBytes The bytes already queued.
+     * @param packetBytes The size of the arriving packet.
+     * @param now         The current time, in ns.
+     * @return <code>true</code> to queue the packet; <code>false</code> to
+     *         drop it.
+     */
+    public boolean admit (int queuedBytes, int packetBytes, long now) {
+
+	return queuedBytes + packetBytes <= LIMIT;
+
+    } // admit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decide whether to drop a packet just taken from the head of the queue.
+     * By default, never.
+     *
+     * @param sojourn     How long the packet waited, in ns.
+     * @param queuedBytes The bytes still queued behind it.
+     * @param now         The current time, in ns.
+     * @return <code>true</code> to drop the packet; <code>false</code> to
+     *         send it.
+     */
+    public boolean dropOnDeparture (long sojourn, int queuedBytes, long now) {
+
+	return false;
+
+    } // dropOnDeparture ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The most bytes an output queue holds, set with <code>-Dqueue.limit=</code>. */
+    public static final int LIMIT = Integer.getInteger("queue.limit", 1 << 20);
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class QueuePolicy
+// =============================================================================
@@ -0,0 +1,105 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   REDQueuePolicy.java
+ * @date   October 2026
+ *
+ * Random Early Detection: keep an exponentially weighted average of the bytes
+ * queued, as seen by arriving packets.  Below a minimum threshold, admit
+ * every packet; above a maximum, drop every packet; between, drop with a
+ * probability that rises linearly to <code>MAX_PROBABILITY</code>, spread out
+ * by the number of packets admitted since the last drop, so that drops are
+ * roughly evenly spaced.  Senders thus see early, occasional drops rather than
+ * a burst of them when the queue overflows.
+ *
+ * The average is not decayed for time spent idle, so it may lag after a quiet
+ * period.
+ */
+public class REDQueuePolicy extends QueuePolicy {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Decide whether to admit an arriving packet, updating the average queue
+     * size.
+     *
+     * @param queuedBytes The bytes already queued.
+     * @param packetBytes The size of the arriving packet.
+     * @param now         The current time, in ns.
+     * @return <code>true</code> to queue the packet; <code>false</code> to
+     *         drop it.
+     */
+    public boolean admit (int queuedBytes, int packetBytes, long now) {
+
+	average += WEIGHT * (queuedBytes - average);
+
+	if (average < MIN_THRESHOLD) {
+	    count = -1;
+	} else if (average < MAX_THRESHOLD) {
+	    count += 1;
+	    double base = (MAX_PROBABILITY * (average - MIN_THRESHOLD) /
+			   (MAX_THRESHOLD - MIN_THRESHOLD));
+	    double probability = (count * base < 1 ? base / (1 - count * base) : 1);
+	    if (random.nextDouble() < probability) {
+		count = 0;
+		return false;
+	    }
+	} else {
+	    count = 0;
+	    return false;
+	}
+
+	return super.admit(queuedBytes, packetBytes, now);
+
+    } // admit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The average bytes queued. */
+    private double       average = 0;
+
+    /** The packets admitted since the last drop; -1 below the minimum. */
+    private int          count   = -1;
+
+    /** The source of drop decisions. */
+    private final Random random  = new Random();
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The average queue sizes, in bytes, between which drops are random. */
+    public static final int    MIN_THRESHOLD
+	= Integer.getInteger("red.minThreshold", 4096);
+    public static final int    MAX_THRESHOLD
+	= Math.max(MIN_THRESHOLD + 1, Integer.getInteger("red.maxThreshold", 12288));
+
+    /** The drop probability as the average reaches the maximum threshold. */
+    public static final double MAX_PROBABILITY
+	= Double.parseDouble(System.getProperty("red.maxProbability", "0.1"));
+
+    /** The weight of each new sample in the average. */
+    public static final double WEIGHT
+	= Double.parseDouble(System.getProperty("red.weight", "0.002"));
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class REDQueuePolicy
+// =============================================================================
@@ -0,0 +1,314 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Puts the packets of one flow back in the order in which they were sent, by
+ * their sequence numbers.  A window of <code>WINDOW</code> sequence numbers,
+ * starting at the next one expected, is held as a ring of slots with a bitmap
+ * of which are filled.  A packet that arrives in order is released at once,
+ * with any held packets it makes contiguous; one that arrives ahead is held
+ * in its slot; one that arrives behind was already given up for lost or is a
+ * duplicate, and is discarded.
+ *
+ * Memory is bounded by the window: a packet too far ahead to fit slides the
+ * window forward, releasing what is held and skipping what is missing in the
+ * sequence numbers it passes.  A gap that stays open for
+ * <code>TIMEOUT</code> ms is likewise skipped.  Sequence numbers are 32 bits
+ * and compared serially, and 0 is never used.
+ *
+ * Each packet's reorder depth, how far ahead of the next expected sequence
+ * number it arrived, is tallied in a histogram of powers of two.
+ *
+ * Not thread-safe: each buffer belongs to one host's event loop.
+ *
+ * @file   ReorderBuffer.java
+ * @date   October 2026
+ */
+public class ReorderBuffer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create an empty buffer, expecting sequence number 1 first.
+     */
+    public ReorderBuffer () {
+
+	slots    = new byte[WINDOW][];
+	filled   = new long[WINDOW / Long.SIZE];
+	ready    = new ArrayDeque<byte[]>();
+	next     = 1;
+	held     = 0;
+	gapSince = 0;
+
+    } // ReorderBuffer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in a packet's data.  Whatever it allows to be released in order
+     * may then be taken with <code>poll()</code>.
+     *
+     * @param sequence The packet's sequence number.
+     * @param data     The packet's data.
+     * @param now      The current time, in ms.
+     */
+    public void insert (int sequence, byte[] data, long now) {
+
+	int ahead = sequence - next;
+	if (ahead < 0 || (ahead < WINDOW && isFilled(sequence))) {
+	    packetsLate.increment();
+	    return;
+	}
+	depthCount(ahead).increment();
+
+	// Slide the window far enough to hold the packet.
+	if (ahead >= WINDOW) {
+	    windowSlides.increment();
+	    skipTo(sequence - WINDOW + 1);
+	}
+
+	if (held == 0) {
+	    gapSince = now;
+	}
+	int slot = sequence & (WINDOW - 1);
+	slots[slot]           = data;
+	filled[slot >>> 6]   |= 1L << slot;
+	held                 += 1;
+	if (sequence != next) {
+	    packetsHeld.increment();
+	}
+
+	release(now);
+
+    } // insert ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Skip a gap that has stayed open too long, releasing what is held beyond
+     * it.
+     *
+     * @param now The current time, in ms.
+     */
+    public void expire (long now) {
+
+	if (held > 0 && now - gapSince > TIMEOUT) {
+	    gapsTimedOut.increment();
+	    int sequence = next;
+	    while (!isFilled(sequence)) {
+		sequence = successor(sequence);
+	    }
+	    skipTo(sequence);
+	    release(now);
+	}
+
+    } // expire ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove the data of the next packet released in order.
+     *
+     * @return the data; <code>null</code> if none has been released.
+     */
+    public byte[] poll () {
+
+	return ready.poll();
+
+    } // poll ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Release the held packets that are contiguous from the next expected,
+     * restarting the time any gap that remains has been open.
+     */
+    private void release (long now) {
+
+	boolean moved = false;
+	while (isFilled(next)) {
+	    int slot = next & (WINDOW - 1);
+	    ready.add(slots[slot]);
+	    slots[slot]          = null;
+	    filled[slot >>> 6]  &= ~(1L << slot);
+	    held                -= 1;
+	    next                 = successor(next);
+	    moved                = true;
+	}
+	if (moved) {
+	    gapSince = now;
+	}
+
+    } // release ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Move the next expected sequence number forward to the given one,
+     * releasing what is held and counting what is missing on the way.
+     */
+    private void skipTo (int sequence) {
+
+	while (sequence - next > 0) {
+	    int slot = next & (WINDOW - 1);
+	    if (isFilled(next)) {
+		ready.add(slots[slot]);
+		slots[slot]          = null;
+		filled[slot >>> 6]  &= ~(1L << slot);
+		held                -= 1;
+	    } else {
+		packetsSkipped.increment();
+	    }
+	    next = successor(next);
+	}
+
+    } // skipTo ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether the slot for a sequence number within the window is
+     * filled.
+     */
+    private boolean isFilled (int sequence) {
+
+	int slot = sequence & (WINDOW - 1);
+	return (filled[slot >>> 6] & 1L << slot) != 0;
+
+    } // isFilled ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the sequence number after the given one, passing over 0.
+     */
+    private static int successor (int sequence) {
+
+	return (sequence == -1 ? 1 : sequence + 1);
+
+    } // successor ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the histogram counter of packets that arrived ahead by the same
+     * power of two as the given depth.
+     *
+     * @param depth How many sequence numbers ahead of the next expected the
+     *              packet arrived.
+     */
+    private static LongAdder depthCount (int depth) {
+
+	int       bucket  = 32 - Integer.numberOfLeadingZeros(depth);
+	LongAdder counter = depthCounts[bucket];
+	if (counter == null) {
+	    counter = Statistics.counter(String.format("reorder.depthUnder.%010d",
+						       1L << bucket));
+	    depthCounts[bucket] = counter;
+	}
+	return counter;
+
+    } // depthCount ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The data held, by sequence number modulo the window. */
+    private byte[][]            slots;
+
+    /** Which slots are filled, one bit per slot. */
+    private long[]              filled;
+
+    /** The data released in order and not yet taken. */
+    private ArrayDeque<byte[]>  ready;
+
+    /** The next sequence number expected, and the number of slots filled. */
+    private int                 next;
+    private int                 held;
+
+    /**
+     * When (in ms) the gap before the held packets, if any, opened or last
+     * moved forward.
+     */
+    private long                gapSince;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /**
+     * The number of sequence numbers the window spans, set with
+     * <code>-Dreorder.window=</code> and rounded up to a power of two of at
+     * least 64.
+     */
+    public static final int  WINDOW
+	= Math.max(Long.SIZE,
+		   Integer.highestOneBit(Math.max(1, Integer.getInteger("reorder.window",
+									   256) - 1)) << 1);
+
+    /** How long (in ms) a gap may stay open; <code>-Dreorder.timeout=</code>. */
+    public static final long TIMEOUT = Long.getLong("reorder.timeout", 500);
+
+    /** Counts of reordering events across all hosts. */
+    private static final LongAdder packetsHeld
+	= Statistics.counter("reorder.packetsHeld");
+    private static final LongAdder packetsLate
+	= Statistics.counter("reorder.packetsLate");
+    private static final LongAdder packetsSkipped
+	= Statistics.counter("reorder.packetsSkipped");
+    private static final LongAdder gapsTimedOut
+	= Statistics.counter("reorder.gapsTimedOut");
+    private static final LongAdder windowSlides
+	= Statistics.counter("reorder.windowSlides");
+
+    /** The histogram of reorder depths, filled in as used. */
+    private static final LongAdder[] depthCounts = new LongAdder[33];
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class ReorderBuffer
+// =============================================================================
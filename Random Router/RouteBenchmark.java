@@ -0,0 +1,284 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayList;
+import java.util.Random;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * Measure the cost of choosing a route in <code>RandomNetworkLayer</code>,
+ * against the original method: a hash lookup for a neighboring destination,
+ * and otherwise, a fresh list of all links and a fresh random number
+ * generator for every packet.  Each is timed on hosts of several degrees,
+ * routing to a mix of neighboring and distant destinations.  Against both,
+ * the cost per hop of forwarding by <code>SourceRouteNetworkLayer</code>'s
+ * paths is timed on a host of the same degree: reading the link number from
+ * a packet's path and stepping the path on.
+ *
+ * Run as <code>java RouteBenchmark [routes]</code>.
+ *
+ * @file   RouteBenchmark.java
+ * @date   October 2026
+ */
+public class RouteBenchmark {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The entry point.
+     *
+     * @param args Optionally, the number of routes chosen per measurement.
+     */
+    public static void main (String[] args) {
+
+	int routes = (args.length > 0 ? Integer.parseInt(args[0]) : 1000000);
+
+	for (int degree : DEGREES) {
+
+	    RandomNetworkLayer layer = createHost(degree);
+
+	    // One destination in four is a neighbor.
+	    Random random       = new Random(5);
+	    int[]  destinations = new int[DESTINATIONS];
+	    for (int i = 0; i < destinations.length; i += 1) {
+		destinations[i] = (random.nextInt(4) == 0
+				   ? AddressRegistry.intern("n" + random.nextInt(degree))
+				   : AddressRegistry.intern("far" + i));
+	    }
+
+	    // Paths of eight hops, each a random link of a host of this degree.
+	    SourceRouteNetworkLayer sourceLayer = createSourceHost(degree);
+	    byte[][]                packets     = new byte[DESTINATIONS][];
+	    for (int i = 0; i < packets.length; i += 1) {
+		packets[i] = createRoutedPacket(random, degree);
+	    }
+
+	    // Warm up each, then time it.
+	    timeLegacy(layer, destinations, routes);
+	    timeCurrent(layer, destinations, routes);
+	    timeSourceRoute(sourceLayer, packets, routes);
+	    long legacy  = timeLegacy(layer, destinations, routes);
+	    long current = timeCurrent(layer, destinations, routes);
+	    long source  = timeSourceRoute(sourceLayer, packets, routes);
+
+	    System.out.printf("degree %3d:  legacy %7.1f ns/route  " +
+			      "current %7.1f ns/route  source route %7.1f ns/hop\n",
+			      degree,
+			      (double)legacy  / routes,
+			      (double)current / routes,
+			      (double)source  / routes);
+
+	}
+
+	// Keep the chosen links live.
+	if (sink == 0x5eed) {
+	    System.out.println();
+	}
+
+    } // main ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a host's network layer with the given number of links.
+     */
+    private static RandomNetworkLayer createHost (int degree) {
+
+	RandomNetworkLayer layer
+	    = (RandomNetworkLayer)NetworkLayer.create("Random", new Host("bench", "Random"));
+	for (int n = 0; n < degree; n += 1) {
+	    PhysicalLayer physicalLayer = new PhysicalLayer(Medium.create("Perfect"));
+	    layer.attach(DataLinkLayer.create("Dumb", physicalLayer), "n" + n, 1);
+	}
+	return layer;
+
+    } // createHost ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a source-routing host's network layer with the given number of
+     * links.
+     */
+    private static SourceRouteNetworkLayer createSourceHost (int degree) {
+
+	SourceRouteNetworkLayer layer
+	    = (SourceRouteNetworkLayer)NetworkLayer.create("SourceRoute",
+							   new Host("source", "SourceRoute"));
+	for (int n = 0; n < degree; n += 1) {
+	    PhysicalLayer physicalLayer = new PhysicalLayer(Medium.create("Perfect"));
+	    layer.attach(DataLinkLayer.create("Dumb", physicalLayer), "n" + n, 1);
+	}
+	return layer;
+
+    } // createSourceHost ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a packet whose path is of <code>HOPS</code> random links of a
+     * host of the given degree, encoded as by
+     * <code>SourceRouteNetworkLayer</code>.
+     */
+    private static byte[] createRoutedPacket (Random random, int degree) {
+
+	int    width  = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(degree - 1));
+	byte[] packet = new byte[NetworkLayer.bytesPerHeader + 3 + (HOPS * width + 7) / 8 +
+				 NetworkLayer.MAX_PACKET_SIZE];
+	int    base   = NetworkLayer.bytesPerHeader;
+	packet[base + 1] = (byte)HOPS;
+	packet[base + 2] = (byte)width;
+	for (int hop = 0; hop < HOPS; hop += 1) {
+	    int number = random.nextInt(degree);
+	    for (int b = 0; b < width; b += 1) {
+		if ((number >>> (width - 1 - b) & 1) != 0) {
+		    int bit = hop * width + b;
+		    packet[base + 3 + (bit >>> 3)] |= 0x80 >>> (bit & 7);
+		}
+	    }
+	}
+	return packet;
+
+    } // createRoutedPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Time route choices by the layer's own method.
+     *
+     * @return the total time taken, in nanoseconds.
+     */
+    private static long timeCurrent (RandomNetworkLayer layer,
+				     int[]              destinations,
+				     int                routes) {
+
+	long start = System.nanoTime();
+	for (int r = 0; r < routes; r += 1) {
+	    DataLinkLayer link = layer.route(destinations[r & (DESTINATIONS - 1)]);
+	    sink += System.identityHashCode(link);
+	}
+	return System.nanoTime() - start;
+
+    } // timeCurrent ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Time route choices by the original method.
+     *
+     * @return the total time taken, in nanoseconds.
+     */
+    private static long timeLegacy (RandomNetworkLayer layer,
+				    int[]              destinations,
+				    int                routes) {
+
+	long start = System.nanoTime();
+	for (int r = 0; r < routes; r += 1) {
+	    DataLinkLayer link = legacyRoute(layer, destinations[r & (DESTINATIONS - 1)]);
+	    sink += System.identityHashCode(link);
+	}
+	return System.nanoTime() - start;
+
+    } // timeLegacy ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Time forwarding by source route, one hop of a packet's path per route.
+     *
+     * @return the total time taken, in nanoseconds.
+     */
+    private static long timeSourceRoute (SourceRouteNetworkLayer layer,
+					 byte[][]                packets,
+					 int                     routes) {
+
+	long start = System.nanoTime();
+	for (int r = 0; r < routes; r += 1) {
+	    if ((r & (DESTINATIONS * HOPS - 1)) == 0) {
+		rewind(packets);
+	    }
+	    byte[] packet = packets[r & (DESTINATIONS - 1)];
+	    DataLinkLayer link = layer.nextLink(packet);
+	    sink += System.identityHashCode(link);
+	}
+	return System.nanoTime() - start;
+
+    } // timeSourceRoute ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Set every packet's path back to its first hop.
+     */
+    private static void rewind (byte[][] packets) {
+
+	for (byte[] packet : packets) {
+	    packet[NetworkLayer.bytesPerHeader] = 0;
+	}
+
+    } // rewind ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The original route choice, as it was before neighbors were held in
+     * arrays.
+     */
+    private static DataLinkLayer legacyRoute (RandomNetworkLayer layer,
+					      int                destination) {
+
+	if (layer.dataLinkLayers.containsKey(destination)) {
+	    return layer.dataLinkLayers.get(destination);
+	}
+	ArrayList<DataLinkLayer> links
+	    = new ArrayList<DataLinkLayer>(layer.dataLinkLayers.values());
+	Random random = new Random();
+	return links.get(random.nextInt(links.size()));
+
+    } // legacyRoute ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The numbers of links of the hosts measured. */
+    private static final int[] DEGREES      = { 2, 4, 16, 64 };
+
+    /** The number of distinct destinations routed to; a power of two. */
+    private static final int   DESTINATIONS = 1024;
+
+    /** The number of hops in each source-routed packet's path; a power of two. */
+    private static final int   HOPS         = 8;
+
+    /** Accumulates the chosen links, so that choosing them is not elided. */
+    private static long        sink         = 0;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class RouteBenchmark
+// =============================================================================
@@ -0,0 +1,382 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   RoutingNetworkLayer.java
+ * @date   October 2026
+ *
+ * The common base of network layers that learn their routes by exchanging
+ * control packets with their neighbors.  It forwards by a table of the link
+ * to use for each destination, which a subclass installs whole as it learns
+ * routes.  Packets sent before any route to their destination is known are
+ * held until one is.
+ *
+ * With <code>-Dhierarchical=true</code>, the table is instead kept as a
+ * <code>PrefixTrie</code> over the destinations' hierarchical addresses, and
+ * routes are summarized: each area has a route by the link most of its hosts
+ * are reached by, each subnet a route of its own only where its hosts mostly
+ * differ from their area, and each host a route of its own only where it
+ * differs from its subnet.  Where areas and subnets are each reached by one
+ * link, as they are when they lie beyond one neighbor, a host keeps a route
+ * per area rather than per host.  A destination not yet reachable follows its
+ * area's or subnet's route, as behind any summary route.
+ *
+ * A control packet is addressed to <code>CONTROL_ADDRESS</code>, and its
+ * first data byte gives its type, by which each subclass recognizes its own.
+ */
+public abstract class RoutingNetworkLayer extends NetworkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Start with no routes.
+     */
+    public RoutingNetworkLayer () {
+
+	forwardingTable = new DataLinkLayer[0];
+	pendingPackets  = new ConcurrentLinkedQueue<byte[]>();
+
+    } // RoutingNetworkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Choose the link given by the forwarding table.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @return the link; <code>null</code> if no route is yet known.
+     */
+    protected DataLinkLayer route (int destination) {
+
+	PrefixTrie<DataLinkLayer> prefixes = prefixTable;
+	if (prefixes != null) {
+	    return prefixes.lookup(AddressRegistry.hierarchical(destination));
+	}
+	DataLinkLayer[] table = forwardingTable;
+	return (destination >= 0 && destination < table.length
+		? table[destination]
+		: null);
+
+    } // route ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pass a packet to the link given by the forwarding table, or hold it if
+     * there is no known route.  If too many packets are held, the oldest is
+     * dropped.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @param packet      The packet.
+     */
+    protected void sendPacket (int destination, byte[] packet) {
+
+	DataLinkLayer dataLink = route(destination);
+	if (dataLink != null) {
+	    transmit(dataLink, packet);
+	    return;
+	}
+
+	if (pendingPackets.size() >= MAX_PENDING_PACKETS) {
+	    pendingPackets.poll();
+	    packetsUnroutable.increment();
+	}
+	pendingPackets.add(packet);
+
+    } // sendPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Given a received packet, process it.
+     *
+     * @param packet The received packet to process.
+     */
+    protected void processPacket (byte[] packet) {
+
+	processPacket(null, packet);
+
+    } // processPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Given a packet received on a link, process it.  Pass a control packet
+     * to the subclass; deliver a packet destined for this host to the client;
+     * forward any other.
+     *
+     * @param dataLink The link on which the packet arrived.
+     * @param packet   The received packet to process.
+     */
+    protected void processPacket (DataLinkLayer dataLink, byte[] packet) {
+
+	int destination = readInt(packet, destinationOffset);
+
+	if (destination == CONTROL_ADDRESS) {
+	    if (packet.length > bytesPerHeader) {
+		processControl(dataLink, packet[bytesPerHeader], packet);
+	    }
+	} else if (destination == address) {
+	    deliver(packet);
+	} else {
+	    forward(destination, packet);
+	}
+
+    } // processPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Process a control packet received from a neighbor.
+     *
+     * @param dataLink The link on which the packet arrived.
+     * @param type     The type of control packet.
+     * @param packet   The whole packet, header included.
+     */
+    abstract protected void processControl (DataLinkLayer dataLink,
+					    byte          type,
+					    byte[]        packet);
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send any held packets that now have a route.  A subclass that does its
+     * own periodic work should also call this.
+     */
+    protected void checkTimeout () {
+
+	// Retry each held packet once.
+	for (int n = pendingPackets.size(); n > 0; n -= 1) {
+	    byte[] packet = pendingPackets.poll();
+	    if (packet == null) {
+		break;
+	    }
+	    int           destination = readInt(packet, destinationOffset);
+	    DataLinkLayer dataLink    = route(destination);
+	    if (dataLink == null) {
+		pendingPackets.add(packet);
+	    } else {
+		transmit(dataLink, packet);
+	    }
+	}
+
+    } // checkTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Replace the forwarding table.
+     *
+     * @param table The link to use for each destination, indexed by its
+     *              address; <code>null</code> for unreachable ones.  It must
+     *              not be modified afterwards.
+     */
+    protected void installRoutes (DataLinkLayer[] table) {
+
+	if (HIERARCHICAL) {
+	    prefixTable = summarize(table);
+	} else {
+	    forwardingTable = table;
+	}
+
+    } // installRoutes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Summarize a forwarding table as routes to areas, subnets and hosts by
+     * their hierarchical addresses.
+     *
+     * @param table The link to use for each destination, indexed by its
+     *              address; <code>null</code> for unreachable ones.
+     * @return the routes.
+     */
+    protected static PrefixTrie<DataLinkLayer> summarize (DataLinkLayer[] table) {
+
+	// Sort the reachable destinations by hierarchical address, each with
+	// its dense address in the low bits, so that each area and subnet is
+	// one run.
+	long[] destinations = new long[table.length];
+	int    count        = 0;
+	for (int address = 0; address < table.length; address += 1) {
+	    if (table[address] != null) {
+		long hierarchical     = AddressRegistry.hierarchical(address) & 0xffffffffL;
+		destinations[count++] = hierarchical << 32 | address;
+	    }
+	}
+	destinations = Arrays.copyOf(destinations, count);
+	Arrays.sort(destinations);
+
+	PrefixTrie<DataLinkLayer> trie = new PrefixTrie<DataLinkLayer>(count / 8 + 1);
+	for (int area = 0; area < count; ) {
+	    int           areaEnd  = runEnd(destinations, area, AddressRegistry.AREA_PREFIX);
+	    DataLinkLayer areaLink = mostCommon(table, destinations, area, areaEnd);
+	    trie.insert((int)(destinations[area] >>> 32), AddressRegistry.AREA_PREFIX, areaLink);
+
+	    for (int subnet = area; subnet < areaEnd; ) {
+		int           subnetEnd  = runEnd(destinations, subnet, AddressRegistry.SUBNET_PREFIX);
+		DataLinkLayer subnetLink = mostCommon(table, destinations, subnet, subnetEnd);
+		if (subnetLink != areaLink) {
+		    trie.insert((int)(destinations[subnet] >>> 32),
+				AddressRegistry.SUBNET_PREFIX,
+				subnetLink);
+		}
+
+		for (int host = subnet; host < subnetEnd; host += 1) {
+		    DataLinkLayer hostLink = table[(int)destinations[host]];
+		    if (hostLink != subnetLink) {
+			trie.insert((int)(destinations[host] >>> 32), Integer.SIZE, hostLink);
+		    }
+		}
+		subnet = subnetEnd;
+	    }
+	    area = areaEnd;
+	}
+	trie.trim();
+
+	hostRoutes.add(count);
+	prefixRoutes.add(trie.size());
+	return trie;
+
+    } // summarize ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the end of a run of sorted destinations that share a prefix.
+     *
+     * @return the index of the first destination beyond the run.
+     */
+    private static int runEnd (long[] destinations, int start, int prefixLength) {
+
+	long prefix = destinations[start] >>> (64 - prefixLength);
+	int  end    = start + 1;
+	while (end < destinations.length && destinations[end] >>> (64 - prefixLength) == prefix) {
+	    end += 1;
+	}
+	return end;
+
+    } // runEnd ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Find the link by which most of a run of destinations are reached.
+     */
+    private static DataLinkLayer mostCommon (DataLinkLayer[] table,
+					     long[]          destinations,
+					     int             start,
+					     int             end) {
+
+	Map<DataLinkLayer, Integer> counts = new HashMap<DataLinkLayer, Integer>();
+	DataLinkLayer               best   = null;
+	int                         most   = 0;
+	for (int i = start; i < end; i += 1) {
+	    DataLinkLayer link  = table[(int)destinations[i]];
+	    int           times = counts.merge(link, 1, Integer::sum);
+	    if (times > most) {
+		best = link;
+		most = times;
+	    }
+	}
+	return best;
+
+    } // mostCommon ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /**
+     * The link to use for each destination, indexed by address.  Replaced
+     * whole, never modified, so that it may be read by the client's thread.
+     */
+    private volatile DataLinkLayer[] forwardingTable;
+
+    /**
+     * The summarized routes, by hierarchical address, when they are used;
+     * otherwise <code>null</code>.  Replaced whole, never modified.
+     */
+    private volatile PrefixTrie<DataLinkLayer> prefixTable;
+
+    /** Packets waiting for a route to their destination. */
+    private Queue<byte[]> pendingPackets;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The most packets held while waiting for a route. */
+    public static final int MAX_PENDING_PACKETS = 1024;
+
+    /** Whether to summarize routes by hierarchical address; <code>-Dhierarchical=</code>. */
+    public static final boolean HIERARCHICAL = Boolean.getBoolean("hierarchical");
+
+    /**
+     * The routes installed, one per reachable destination, and the summarized
+     * routes that replaced them.
+     */
+    private static final LongAdder hostRoutes
+	= Statistics.counter("routing.hostRoutes");
+    private static final LongAdder prefixRoutes
+	= Statistics.counter("routing.prefixRoutes");
+
+    /** The number of held packets dropped for want of a route. */
+    private static final LongAdder packetsUnroutable
+	= Statistics.counter("network.packetsUnroutable");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class RoutingNetworkLayer
+// =============================================================================
@@ -5,10 +5,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.lang.InterruptedException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -108,11 +114,10 @@ public class Simulator {
 	    throw new RuntimeException("No such file: " + linksPath);
 	}
 
-	// Create the map of hostnames to Hosts.
-	Map<String, Host> hosts = new HashMap<String, Host>();
-	
-	// Read in the links as triplets of "host host weight", updating the
-	// collection of hosts and links with each.
+	// Read in the links as triplets of "host host weight".
+	List<String>  hostnamesA = new ArrayList<String>();
+	List<String>  hostnamesB = new ArrayList<String>();
+	List<Integer> weights    = new ArrayList<Integer>();
 	int linkCount = 0;
 	while (s.hasNext()) {
 
@@ -125,7 +130,32 @@ public class Simulator {
 	    if (!s.hasNextInt()) {
 		throw new RuntimeException("Incomplete link record #" + linkCount);
 	    }
-	    int weight = s.nextInt();
+	    hostnamesA.add(hostnameA);
+	    hostnamesB.add(hostnameB);
+	    weights.add(s.nextInt());
+
+	}
+
+	// Give every host its address before any host is built, so that each
+	// network layer can size its tables for the whole network.
+	for (int i = 0; i < linkCount; i += 1) {
+	    AddressRegistry.intern(hostnamesA.get(i));
+	    AddressRegistry.intern(hostnamesB.get(i));
+	}
+	AddressRegistry.assignHierarchy(breadthFirst(hostnamesA, hostnamesB),
+					AREA_SIZE,
+					SUBNET_SIZE);
+
+	// Create the map of hostnames to Hosts.
+	Map<String, Host> hosts = new HashMap<String, Host>();
+	
+	// Create the hosts and links, updating the collection of hosts and links
+	// with each.
+	for (int i = 0; i < linkCount; i += 1) {
+
+	    String hostnameA = hostnamesA.get(i);
+	    String hostnameB = hostnamesB.get(i);
+	    int    weight    = weights.get(i);
 
 	    // Grab the hosts.  If either hostname doesn't exist, create it.
 	    if (!hosts.containsKey(hostnameA)) {
@@ -151,9 +181,9 @@ public class Simulator {
 								physicalLayerB);
 
 	    // Attach these data link layers to each host, registering that the
-	    // link leads to the other host.
-	    hostA.attach(dataLinkLayerA, hostnameB);
-	    hostB.attach(dataLinkLayerB, hostnameA);
+	    // link leads to the other host and what it costs.
+	    hostA.attach(dataLinkLayerA, hostnameB, weight);
+	    hostB.attach(dataLinkLayerB, hostnameA, weight);
 
 	    if (debug) {
 		System.out.printf("Simulator.construct(): Attached %s and %s\n",
@@ -170,6 +200,52 @@ public class Simulator {
 
 
 
+    // =========================================================================
+    /**
+     * List the hosts joined by a set of links breadth first, starting each
+     * connected part of the network from its first host in the links file, so
+     * that hosts near one another are near one another in the list.
+     *
+     * @param hostnamesA The first host of each link.
+     * @param hostnamesB The second host of each link.
+     * @return every host, once.
+     */
+    private static List<String> breadthFirst (List<String> hostnamesA,
+					      List<String> hostnamesB) {
+
+	Map<String, List<String>> neighbors = new LinkedHashMap<String, List<String>>();
+	for (int i = 0; i < hostnamesA.size(); i += 1) {
+	    String hostnameA = hostnamesA.get(i);
+	    String hostnameB = hostnamesB.get(i);
+	    neighbors.computeIfAbsent(hostnameA, h -> new ArrayList<String>()).add(hostnameB);
+	    neighbors.computeIfAbsent(hostnameB, h -> new ArrayList<String>()).add(hostnameA);
+	}
+
+	List<String>       ordered = new ArrayList<String>(neighbors.size());
+	Set<String>        seen    = new HashSet<String>();
+	ArrayDeque<String> queue   = new ArrayDeque<String>();
+	for (String start : neighbors.keySet()) {
+	    if (!seen.add(start)) {
+		continue;
+	    }
+	    queue.add(start);
+	    while (!queue.isEmpty()) {
+		String hostname = queue.poll();
+		ordered.add(hostname);
+		for (String neighbor : neighbors.get(hostname)) {
+		    if (seen.add(neighbor)) {
+			queue.add(neighbor);
+		    }
+		}
+	    }
+	}
+	return ordered;
+
+    } // breadthFirst ()
+    // =========================================================================
+
+
+
     // =========================================================================
     /**
      * Read the whole contents of a given file, returning it in a byte array.
@@ -259,8 +335,11 @@ public class Simulator {
                               received.length);
         }
 
-        receiver.stop();
-        sender.stop();
+        // Stop every host, then summarize the run.
+	for (Host host : hosts.values()) {
+	    host.stop();
+	}
+	Statistics.print();
 
     } // simulate()
     // =========================================================================
@@ -272,6 +351,14 @@ public class Simulator {
 
     /** Whether to emit debugging information. */
     public static final boolean debug = false;
+
+    /**
+     * The most hosts given hierarchical addresses in one area, and in one
+     * subnet; <code>-Daddress.areaSize=</code> and
+     * <code>-Daddress.subnetSize=</code>.
+     */
+    public static final int AREA_SIZE   = Integer.getInteger("address.areaSize", 1024);
+    public static final int SUBNET_SIZE = Integer.getInteger("address.subnetSize", 64);
     // =========================================================================
     
     
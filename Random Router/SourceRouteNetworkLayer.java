@@ -0,0 +1,517 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   SourceRouteNetworkLayer.java
+ * @date   October 2026
+ *
+ * A network layer in which the source chooses each packet's whole path.  The
+ * topology is learned by link-state advertisements, as in
+ * <code>LinkStateNetworkLayer</code>; whenever it changes, each host finds
+ * the shortest path to every other once, and encodes each path as the link
+ * to take at every hop.  A host's links are numbered in order of the
+ * addresses of the neighbors they lead to, so that the source can number
+ * every host's links from its LSA.
+ *
+ * The path travels in an option at the front of the packet's data:
+ *
+ *     hop (1 byte) | hops (1) | width (1) | hops x link number (width bits)
+ *
+ * with the link numbers packed as tightly as the largest of them allows.
+ * Each host passes the packet to the link numbered at the current hop and
+ * steps the hop on, with no table to consult.  The destination strips the
+ * option before delivering.
+ *
+ * Since later fragments would lack the option, the source fragments each
+ * packet itself, to the smallest MTU along its path, and gives every fragment
+ * the option; the fragments are then forwarded as they are, and reassembled
+ * once the destination has stripped their options.  Control packets and
+ * packets to groups are handled as by <code>LinkStateNetworkLayer</code>.
+ */
+public class SourceRouteNetworkLayer extends LinkStateNetworkLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Default constructor.  Start with no paths.
+     */
+    public SourceRouteNetworkLayer () {
+
+	links          = new DataLinkLayer[0];
+	paths          = new byte[0][];
+	pathMtus       = new int[0];
+	pendingPackets = new ConcurrentLinkedQueue<byte[]>();
+
+    } // SourceRouteNetworkLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Attach a link, and renumber this host's links by neighbor address.
+     *
+     * @param dataLinkLayer The data link layer controlling the link.
+     * @param hostname      The name of the remote host to which this link is
+     *                      connected.
+     * @param weight        The cost of sending over this link.
+     */
+    public void attach (DataLinkLayer dataLinkLayer,
+			String        remoteHostname,
+			int           weight) {
+
+	super.attach(dataLinkLayer, remoteHostname, weight);
+
+	DataLinkLayer[] numbered = new DataLinkLayer[dataLinkLayers.size()];
+	int             i        = 0;
+	for (DataLinkLayer dataLink : linksByAddress) {
+	    if (dataLink != null) {
+		numbered[i++] = dataLink;
+	    }
+	}
+	links = numbered;
+
+    } // attach ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a packet from this host along its path, or hold it if no path to
+     * its destination is yet known.  Packets to groups go down their trees.
+     *
+     * @param destination The address to which this packet is being sent.
+     * @param packet      The packet.
+     */
+    protected void sendPacket (int destination, byte[] packet) {
+
+	if (isGroup(destination)) {
+	    super.sendPacket(destination, packet);
+	    return;
+	}
+
+	byte[][] known = paths;
+	byte[]   path  = (destination >= 0 && destination < known.length
+			  ? known[destination]
+			  : null);
+	if (path == null) {
+	    if (pendingPackets.size() >= MAX_PENDING_PACKETS) {
+		pendingPackets.poll();
+		packetsUnroutable.increment();
+	    }
+	    pendingPackets.add(packet);
+	    return;
+	}
+
+	sendAlong(path, pathMtus[destination], packet);
+
+    } // sendPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the most data a packet to a destination should carry: as much
+     * as fits the smallest MTU along its path, after the path itself.
+     *
+     * @param destination The address to which the packet is being sent.
+     * @return the number of data bytes.
+     */
+    public int maxPacketData (int destination) {
+
+	byte[][] known = paths;
+	byte[]   path  = (destination >= 0 && destination < known.length
+			  ? known[destination]
+			  : null);
+	if (path == null) {
+	    return super.maxPacketData(destination);
+	}
+	return Math.max(1, pathMtus[destination] - bytesPerHeader - path.length);
+
+    } // maxPacketData ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Given a packet received on a link, process it.  Deliver a packet
+     * destined for this host, its option stripped; pass any other packet on
+     * by its path.  Control packets and packets to groups are handled as by
+     * the link-state layer.
+     *
+     * @param dataLink The link on which the packet arrived.
+     * @param packet   The received packet to process.
+     */
+    protected void processPacket (DataLinkLayer dataLink, byte[] packet) {
+
+	int destination = readInt(packet, destinationOffset);
+	if (!carriesPath(destination)) {
+	    super.processPacket(dataLink, packet);
+	    return;
+	}
+
+	if (destination == address) {
+	    byte[] whole = super.reassemble(stripPath(packet));
+	    if (whole != null) {
+		deliver(whole);
+	    }
+	    return;
+	}
+
+	int hopLimit = (packet[hopLimitOffset] & 0xff) - 1;
+	if (hopLimit <= 0) {
+	    packetsExpired.increment();
+	    return;
+	}
+	packet[hopLimitOffset] = (byte)hopLimit;
+
+	DataLinkLayer next = nextLink(packet);
+	if (next == null) {
+	    packetsMisrouted.increment();
+	    return;
+	}
+	transmit(next, packet);
+	packetsForwarded.increment();
+
+    } // processPacket ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Leave every packet that carries a path for <code>processPacket</code>,
+     * which strips the path before reassembly; reassemble others as usual.
+     *
+     * @param packet The received packet.
+     * @return the packet, or the whole packet it completed;
+     *         <code>null</code> if it completed none.
+     */
+    protected byte[] reassemble (byte[] packet) {
+
+	return (carriesPath(readInt(packet, destinationOffset))
+		? packet
+		: super.reassemble(packet));
+
+    } // reassemble ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Install a new forwarding table and, from the same database, find and
+     * encode the path to every reachable host.
+     *
+     * @param table The link to use for each destination, indexed by its
+     *              address; <code>null</code> for unreachable ones.
+     */
+    protected void installRoutes (DataLinkLayer[] table) {
+
+	super.installRoutes(table);
+
+	int   hosts  = AddressRegistry.size();
+	int[] parent = new int[hosts];
+	int[] order  = new int[hosts];
+	int   count  = shortestPaths(address, parent, order);
+
+	// Each host's path is its parent's, plus the number of the link from
+	// the parent to it among the parent's links in address order.
+	int[][]  numbers  = new int[hosts][];
+	int[]    mtus     = new int[hosts];
+	byte[][] encoded  = new byte[hosts][];
+	int[][]  sorted   = new int[hosts][];
+	numbers[address]  = new int[0];
+	mtus[address]     = MAX_DATAGRAM_SIZE;
+	for (int i = 1; i < count; i += 1) {
+	    int host = order[i];
+	    int from = parent[host];
+	    if (sorted[from] == null) {
+		int[] neighbors = advertisedNeighbors(from);
+		sorted[from] = (neighbors == null ? new int[0] : neighbors.clone());
+		Arrays.sort(sorted[from]);
+	    }
+	    int number = Arrays.binarySearch(sorted[from], host);
+	    if (numbers[from] == null || number < 0 ||
+		numbers[from].length >= Math.min(HOP_LIMIT, MAX_HOPS)) {
+		continue;
+	    }
+	    numbers[host] = Arrays.copyOf(numbers[from], numbers[from].length + 1);
+	    numbers[host][numbers[from].length] = number;
+	    mtus[host]    = Math.min(mtus[from],
+				     Math.min(mtu(AddressRegistry.hostname(from)),
+					      mtu(AddressRegistry.hostname(host))));
+	    encoded[host] = encode(numbers[host]);
+	}
+
+	pathMtus = mtus;
+	paths    = encoded;
+	pathComputations.increment();
+
+    } // installRoutes ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send any held packets that now have a path, along with the link-state
+     * layer's periodic work.
+     */
+    protected void checkTimeout () {
+
+	super.checkTimeout();
+
+	// Retry each held packet once.
+	for (int n = pendingPackets.size(); n > 0; n -= 1) {
+	    byte[] packet = pendingPackets.poll();
+	    if (packet == null) {
+		break;
+	    }
+	    sendPacket(readInt(packet, destinationOffset), packet);
+	}
+
+    } // checkTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Read the number of the link on which to send a packet from its path,
+     * and step the path on to the next hop.
+     *
+     * @param packet The packet, with its path after the header.
+     * @return the link; <code>null</code> if the path is spent or names no
+     *         link of this host.
+     */
+    protected DataLinkLayer nextLink (byte[] packet) {
+
+	int hop   = packet[bytesPerHeader + HOP_OFFSET] & 0xff;
+	int hops  = packet[bytesPerHeader + HOPS_OFFSET] & 0xff;
+	int width = packet[bytesPerHeader + WIDTH_OFFSET];
+	if (hop >= hops || width < 1 || width > Byte.SIZE) {
+	    return null;
+	}
+
+	// A link number lies within, or across, two bytes.
+	int bit   = hop * width;
+	int start = bytesPerHeader + NUMBERS_OFFSET + (bit >>> 3);
+	int pair  = (packet[start] & 0xff) << 8;
+	if (start + 1 < packet.length) {
+	    pair |= packet[start + 1] & 0xff;
+	}
+	int number = (pair >>> (16 - (bit & 7) - width)) & ((1 << width) - 1);
+	packet[bytesPerHeader + HOP_OFFSET] = (byte)(hop + 1);
+
+	DataLinkLayer[] numbered = links;
+	return (number < numbered.length ? numbered[number] : null);
+
+    } // nextLink ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Determine whether packets to a destination carry a path.
+     */
+    private static boolean carriesPath (int destination) {
+
+	return (destination != CONTROL_ADDRESS && !isGroup(destination));
+
+    } // carriesPath ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Encode a path as an option, at its first hop.
+     *
+     * @param numbers The number of the link to take at each hop.
+     * @return the option.
+     */
+    private static byte[] encode (int[] numbers) {
+
+	int largest = 1;
+	for (int number : numbers) {
+	    largest = Math.max(largest, number);
+	}
+	int    width  = Integer.SIZE - Integer.numberOfLeadingZeros(largest);
+	byte[] option = new byte[NUMBERS_OFFSET + (numbers.length * width + 7) / 8];
+	option[HOP_OFFSET]   = 0;
+	option[HOPS_OFFSET]  = (byte)numbers.length;
+	option[WIDTH_OFFSET] = (byte)width;
+	for (int i = 0; i < numbers.length; i += 1) {
+	    for (int b = 0; b < width; b += 1) {
+		if ((numbers[i] >>> (width - 1 - b) & 1) != 0) {
+		    int bit = i * width + b;
+		    option[NUMBERS_OFFSET + (bit >>> 3)] |= 0x80 >>> (bit & 7);
+		}
+	    }
+	}
+	return option;
+
+    } // encode ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send a packet from this host along a path, splitting it into fragments
+     * no larger than the path's MTU, each carrying the path.
+     *
+     * @param path    The option encoding the path.
+     * @param pathMtu The smallest MTU along the path.
+     * @param packet  The packet.
+     */
+    private void sendAlong (byte[] path, int pathMtu, byte[] packet) {
+
+	int     fragmentInfo = readInt(packet, fragmentOffset);
+	int     baseOffset   = fragmentInfo & FRAGMENT_OFFSET_MASK;
+	boolean more         = (fragmentInfo & MORE_FRAGMENTS) != 0;
+	int     dataLength   = packet.length - bytesPerHeader;
+	int     maxData      = pathMtu - bytesPerHeader - path.length;
+	if (maxData < 1) {
+	    packetsMisrouted.increment();
+	    return;
+	}
+
+	int start = 0;
+	do {
+
+	    int    length   = Math.min(maxData, dataLength - start);
+	    byte[] fragment = new byte[bytesPerHeader + path.length + length];
+	    System.arraycopy(packet, 0, fragment, 0, bytesPerHeader);
+	    System.arraycopy(path, 0, fragment, bytesPerHeader, path.length);
+	    System.arraycopy(packet, bytesPerHeader + start,
+			     fragment, bytesPerHeader + path.length, length);
+
+	    boolean whole = (start == 0 && length == dataLength);
+	    boolean last  = (start + length == dataLength);
+	    writeInt(fragment, lengthOffset, fragment.length);
+	    if (!whole) {
+		writeInt(fragment, fragmentOffset,
+			 (baseOffset + start) | (more || !last ? MORE_FRAGMENTS : 0));
+	    }
+	    DataLinkLayer first = nextLink(fragment);
+	    if (first == null) {
+		packetsMisrouted.increment();
+		return;
+	    }
+	    transmit(first, fragment);
+	    optionBytesSent.add(path.length);
+	    start += length;
+
+	} while (start < dataLength);
+
+    } // sendAlong ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Remove the path from a packet that has reached its destination.
+     *
+     * @param packet The packet, with its path after the header.
+     * @return the packet without it.
+     */
+    private static byte[] stripPath (byte[] packet) {
+
+	int hops   = packet[bytesPerHeader + HOPS_OFFSET] & 0xff;
+	int width  = packet[bytesPerHeader + WIDTH_OFFSET];
+	int length = Math.min(packet.length - bytesPerHeader,
+			      NUMBERS_OFFSET + (hops * width + 7) / 8);
+
+	byte[] stripped = new byte[packet.length - length];
+	System.arraycopy(packet, 0, stripped, 0, bytesPerHeader);
+	System.arraycopy(packet, bytesPerHeader + length,
+			 stripped, bytesPerHeader, stripped.length - bytesPerHeader);
+	writeInt(stripped, lengthOffset, stripped.length);
+	return stripped;
+
+    } // stripPath ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /**
+     * This host's links, numbered in order of neighbor address.  Replaced
+     * whole, never modified.
+     */
+    private volatile DataLinkLayer[] links;
+
+    /**
+     * The option encoding the path to each host, by address, and the smallest
+     * MTU along it; <code>null</code> for unreachable ones.  Replaced whole,
+     * never modified, so that they may be read by the client's thread.
+     */
+    private volatile byte[][]        paths;
+    private volatile int[]           pathMtus;
+
+    /** Packets waiting for a path to their destination. */
+    private Queue<byte[]>            pendingPackets;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** The offsets of the fields of the option. */
+    private static final int HOP_OFFSET     = 0;
+    private static final int HOPS_OFFSET    = 1;
+    private static final int WIDTH_OFFSET   = 2;
+    private static final int NUMBERS_OFFSET = 3;
+
+    /** The most hops an option may hold. */
+    public static final int  MAX_HOPS       = 0xff;
+
+    /** Counts of source-routing events across all hosts. */
+    private static final LongAdder pathComputations
+	= Statistics.counter("sourceroute.pathComputations");
+    private static final LongAdder optionBytesSent
+	= Statistics.counter("sourceroute.optionBytesSent");
+    private static final LongAdder packetsMisrouted
+	= Statistics.counter("sourceroute.packetsMisrouted");
+    private static final LongAdder packetsUnroutable
+	= Statistics.counter("network.packetsUnroutable");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class SourceRouteNetworkLayer
+// =============================================================================
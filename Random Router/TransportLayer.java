@@ -0,0 +1,808 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   TransportLayer.java
+ * @date   October 2026
+ *
+ * A reliable, congestion-controlled byte stream for each flow between two
+ * hosts, sitting between a <code>Host</code> and its network layer.  A flow
+ * is named by the hosts and ports at its two ends, and each direction of it
+ * is a separate stream.  Data is cut
+ * into segments that fit the host's MTU, each numbered by the offset of its
+ * first byte in the stream.  The receiver puts segments back in order,
+ * delivers the stream to its host without gaps or repeats, and acknowledges
+ * every segment with the offset it expects next (cumulatively) and up to
+ * <code>MAX_SACK_BLOCKS</code> ranges it holds beyond that (selectively).
+ *
+ * The sender keeps at most a congestion window of unacknowledged bytes in
+ * flight, growing it as in TCP Reno: by a segment per acknowledgement in
+ * slow start, and by a segment per window in congestion avoidance.  A segment
+ * is taken as lost once three segments sent after it are acknowledged, or
+ * once the cumulative acknowledgement is repeated three times; it is then
+ * retransmitted and the window halved, once per window of data.  If nothing
+ * is acknowledged for a retransmission timeout, computed from smoothed
+ * round-trip times as in RFC 6298, every unacknowledged segment is resent
+ * starting from a one-segment window.
+ *
+ * Segments travel as network-layer data:
+ *
+ *     data:            DATA_TYPE (1 byte) | sequence (4) | data
+ *     acknowledgement: ACK_TYPE (1 byte) | next expected (4) | count (1) |
+ *                      count x (start (4) | end (4))
+ *
+ * Enabled for every host with <code>-Dtransport=true</code>.  The host's
+ * thread does all sending, in <code>checkTimeout()</code> and on receipt;
+ * the client only adds data to be sent, so every public method is
+ * synchronized.
+ */
+public class TransportLayer {
+// =============================================================================
+
+
+
+    // =========================================================================
+    // PUBLIC METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Create a transport layer for a host.
+     *
+     * @param host         The host it serves.
+     * @param networkLayer The host's network layer, by which it sends.
+     */
+    public TransportLayer (Host host, NetworkLayer networkLayer) {
+
+	this.host         = host;
+	this.networkLayer = networkLayer;
+	this.senders      = new HashMap<Long, Sender>();
+	this.receivers    = new HashMap<Long, Receiver>();
+
+    } // TransportLayer ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add data to the stream of a flow.  It is sent as the window allows.
+     *
+     * @param destination     The name of the destination host.
+     * @param sourcePort      The port at this host from which it is sent.
+     * @param destinationPort The port at the destination to which it is sent.
+     * @param data            The bytes to send.
+     * @param trafficClass    The class in which to send the stream's segments.
+     */
+    public synchronized void send (String destination,
+				   int    sourcePort,
+				   int    destinationPort,
+				   byte[] data,
+				   int    trafficClass) {
+
+	long   key    = Host.flowKey(AddressRegistry.lookup(destination),
+				     destinationPort,
+				     sourcePort);
+	Sender sender = senders.get(key);
+	if (sender == null) {
+	    sender = new Sender(destination, sourcePort, destinationPort);
+	    senders.put(key, sender);
+	}
+	sender.trafficClass = trafficClass;
+	sender.buffer.add(data);
+
+    } // send ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in a segment delivered by the network layer.
+     *
+     * @param source          The address of the host that sent it.
+     * @param sourcePort      The port at that host from which it was sent.
+     * @param destinationPort The port at this host to which it was sent.
+     * @param segment         The segment.
+     */
+    public synchronized void receive (int    source,
+				      int    sourcePort,
+				      int    destinationPort,
+				      byte[] segment) {
+
+	if (segment.length < DATA_HEADER_SIZE || AddressRegistry.hostname(source) == null) {
+	    return;
+	}
+
+	long key = Host.flowKey(source, sourcePort, destinationPort);
+	if (segment[0] == DATA_TYPE) {
+	    Receiver receiver = receivers.get(key);
+	    if (receiver == null) {
+		receiver = new Receiver(source, sourcePort, destinationPort);
+		receivers.put(key, receiver);
+	    }
+	    receiveData(receiver, segment);
+	} else if (segment[0] == ACK_TYPE) {
+	    Sender sender = senders.get(key);
+	    if (sender != null) {
+		receiveAck(sender, segment, System.nanoTime());
+	    }
+	}
+
+    } // receive ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Retransmit after any timeouts, and send whatever the windows allow.
+     * Called repeatedly by the host's event loop.
+     */
+    public synchronized void checkTimeout () {
+
+	if (senders.isEmpty()) {
+	    return;
+	}
+
+	long now = System.nanoTime();
+	for (Sender sender : senders.values()) {
+	    if (sender.rtoDeadline != 0 && now >= sender.rtoDeadline) {
+		timeout(sender, now);
+	    }
+	    transmit(sender, now);
+	}
+
+    } // checkTimeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // PRIVATE METHODS
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send as much as the congestion window allows: first segments taken as
+     * lost, then new data.
+     *
+     * @param sender The stream.
+     * @param now    The current time, in ns.
+     */
+    private void transmit (Sender sender, long now) {
+
+	// Retransmit lost segments, in order.
+	if (sender.lostBytes > 0) {
+	    for (Segment segment : sender.outstanding) {
+		if (segment.lost) {
+		    if (sender.pipe() + segment.length > sender.cwnd) {
+			break;
+		    }
+		    segment.lost          = false;
+		    segment.retransmitted = true;
+		    segment.sentTime      = now;
+		    sender.lostBytes     -= segment.length;
+		    sendSegment(sender, segment);
+		    segmentsRetransmitted.increment();
+		}
+	    }
+	}
+
+	// Send new data.
+	int unsent = sender.buffer.size() - (sender.sndNxt - sender.sndUna);
+	while (unsent > 0) {
+	    int length = Math.min(unsent, mss(sender));
+	    if (sender.pipe() + length > sender.cwnd) {
+		break;
+	    }
+	    if (sender.firstSendTime == 0) {
+		sender.firstSendTime = now;
+	    }
+	    Segment segment = new Segment(sender.sndNxt, length, now);
+	    sender.outstanding.add(segment);
+	    sender.sndNxt += length;
+	    unsent        -= length;
+	    sendSegment(sender, segment);
+	}
+
+	if (sender.rtoDeadline == 0 && !sender.outstanding.isEmpty()) {
+	    sender.rtoDeadline = now + sender.rto;
+	}
+
+    } // transmit ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Send one data segment, copying its bytes from the send buffer.  A
+     * segment cut before the path to its destination was known may be too
+     * large for one packet, and so goes in pieces, each with its own header.
+     */
+    private void sendSegment (Sender sender, Segment segment) {
+
+	int sent = 0;
+	while (sent < segment.length) {
+	    int    length = Math.min(segment.length - sent, mss(sender));
+	    byte[] packet = new byte[DATA_HEADER_SIZE + length];
+	    packet[0] = DATA_TYPE;
+	    NetworkLayer.writeInt(packet, 1, segment.sequence + sent);
+	    sender.buffer.peek(segment.sequence + sent - sender.sndUna, packet,
+			       DATA_HEADER_SIZE, length);
+	    networkLayer.send(sender.destination, sender.localPort, sender.remotePort,
+			      packet, sender.trafficClass);
+	    sent += length;
+	}
+	segmentsSent.increment();
+
+    } // sendSegment ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in an acknowledgement: retire what it covers, mark what it
+     * selectively covers, grow or cut the window, and detect losses.
+     *
+     * @param sender  The stream it acknowledges.
+     * @param segment The acknowledgement.
+     * @param now     The current time, in ns.
+     */
+    private void receiveAck (Sender sender, byte[] segment, long now) {
+
+	int ack    = NetworkLayer.readInt(segment, 1);
+	int blocks = (segment.length > ACK_HEADER_SIZE - 1 ? segment[ACK_HEADER_SIZE - 1] : 0);
+	if (ack - sender.sndUna < 0 || ack - sender.sndNxt > 0 ||
+	    blocks < 0 || segment.length < ACK_HEADER_SIZE + blocks * SACK_BLOCK_SIZE) {
+	    return;
+	}
+
+	// Mark the segments the selective blocks cover.
+	for (int b = 0; b < blocks; b += 1) {
+	    int start = NetworkLayer.readInt(segment, ACK_HEADER_SIZE + b * SACK_BLOCK_SIZE);
+	    int end   = NetworkLayer.readInt(segment, ACK_HEADER_SIZE + b * SACK_BLOCK_SIZE + 4);
+	    for (Segment s : sender.outstanding) {
+		if (s.sequence - end >= 0) {
+		    break;
+		}
+		if (!s.sacked && s.sequence - start >= 0 && s.sequence + s.length - end <= 0) {
+		    s.sacked           = true;
+		    sender.sackedBytes += s.length;
+		    if (s.lost) {
+			s.lost            = false;
+			sender.lostBytes -= s.length;
+		    }
+		}
+	    }
+	}
+
+	// Retire the segments the cumulative acknowledgement covers, timing
+	// the newest that was not retransmitted.
+	int acked = ack - sender.sndUna;
+	if (acked > 0) {
+	    long sample = -1;
+	    while (!sender.outstanding.isEmpty() &&
+		   sender.outstanding.peek().sequence + sender.outstanding.peek().length - ack <= 0) {
+		Segment s = sender.outstanding.poll();
+		if (s.sacked) {
+		    sender.sackedBytes -= s.length;
+		}
+		if (s.lost) {
+		    sender.lostBytes -= s.length;
+		}
+		if (!s.retransmitted) {
+		    sample = now - s.sentTime;
+		}
+	    }
+
+	    // A segment sent in pieces may be acknowledged in part; keep only
+	    // the rest of it.
+	    Segment head = sender.outstanding.peek();
+	    if (head != null && head.sequence - ack < 0) {
+		int covered = ack - head.sequence;
+		if (head.sacked) {
+		    sender.sackedBytes -= covered;
+		}
+		if (head.lost) {
+		    sender.lostBytes -= covered;
+		}
+		head.sequence += covered;
+		head.length   -= covered;
+	    }
+	    sender.buffer.skip(acked);
+	    sender.sndUna   = ack;
+	    sender.dupAcks  = 0;
+	    if (sample >= 0) {
+		sender.updateRto(sample);
+	    }
+	    sender.rtoDeadline = (sender.outstanding.isEmpty() ? 0 : now + sender.rto);
+
+	    // Grow the window, or end recovery once what was outstanding when
+	    // it began has all been acknowledged.
+	    if (sender.inRecovery) {
+		if (ack - sender.recoveryPoint >= 0) {
+		    sender.inRecovery = false;
+		    sender.cwnd       = sender.ssthresh;
+		}
+	    } else if (sender.cwnd < sender.ssthresh) {
+		sender.cwnd += Math.min(acked, mss(sender));
+	    } else {
+		sender.cwnd += Math.max(1, mss(sender) * mss(sender) / sender.cwnd);
+	    }
+	    sender.cwnd = Math.min(sender.cwnd, MAX_WINDOW);
+
+	    sender.bytesAcked.add(acked);
+	    long elapsed = now - sender.firstSendTime;
+	    if (elapsed > 0) {
+		sender.goodput.reset();
+		sender.goodput.add(sender.bytesAcked.sum() * 1000000000L / elapsed);
+	    }
+	} else if (!sender.outstanding.isEmpty()) {
+	    sender.dupAcks += 1;
+	}
+
+	// Take segments as lost, halving the window on entering recovery.
+	if (markLosses(sender) && !sender.inRecovery) {
+	    sender.inRecovery    = true;
+	    sender.recoveryPoint = sender.sndNxt;
+	    sender.ssthresh      = Math.max(sender.flight() / 2, 2 * mss(sender));
+	    sender.cwnd          = sender.ssthresh;
+	    fastRetransmits.increment();
+	}
+
+	transmit(sender, now);
+
+    } // receiveAck ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Mark as lost each unacknowledged segment that has not been resent and
+     * that is followed by at least <code>DUPLICATE_THRESHOLD</code>
+     * selectively acknowledged segments; or, on that many duplicate
+     * acknowledgements, the first unacknowledged segment.
+     *
+     * @param sender The stream.
+     * @return <code>true</code> if any segment was newly marked.
+     */
+    private boolean markLosses (Sender sender) {
+
+	boolean marked = false;
+
+	if (sender.sackedBytes > 0) {
+	    int sackedAbove = 0;
+	    Iterator<Segment> i = sender.outstanding.descendingIterator();
+	    while (i.hasNext()) {
+		Segment s = i.next();
+		if (s.sacked) {
+		    sackedAbove += 1;
+		} else if (sackedAbove >= DUPLICATE_THRESHOLD && !s.lost && !s.retransmitted) {
+		    s.lost            = true;
+		    sender.lostBytes += s.length;
+		    marked            = true;
+		}
+	    }
+	}
+
+	Segment first = sender.outstanding.peek();
+	if (sender.dupAcks >= DUPLICATE_THRESHOLD && first != null &&
+	    !first.sacked && !first.lost && !first.retransmitted) {
+	    first.lost        = true;
+	    sender.lostBytes += first.length;
+	    marked            = true;
+	}
+
+	return marked;
+
+    } // markLosses ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Respond to a retransmission timeout: take every unacknowledged segment
+     * as lost, collapse the window to one segment, and back off the timeout.
+     *
+     * @param sender The stream.
+     * @param now    The current time, in ns.
+     */
+    private void timeout (Sender sender, long now) {
+
+	timeouts.increment();
+	sender.ssthresh   = Math.max(sender.flight() / 2, 2 * mss(sender));
+	sender.cwnd       = mss(sender);
+	sender.inRecovery = false;
+	sender.dupAcks    = 0;
+	for (Segment s : sender.outstanding) {
+	    if (!s.sacked && !s.lost) {
+		s.lost            = true;
+		sender.lostBytes += s.length;
+	    }
+	}
+	sender.rto         = Math.min(2 * sender.rto, MAX_RTO);
+	sender.rtoDeadline = 0;
+
+    } // timeout ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take in a data segment: deliver it, and any held segments it makes
+     * contiguous, if it is next in order; hold it if it is ahead; then
+     * acknowledge.
+     *
+     * @param receiver The stream's receiving state.
+     * @param segment  The segment.
+     */
+    private void receiveData (Receiver receiver, byte[] segment) {
+
+	int sequence = NetworkLayer.readInt(segment, 1);
+	int length   = segment.length - DATA_HEADER_SIZE;
+	int ahead    = sequence - receiver.rcvNxt;
+	if (ahead <= 0) {
+	    deliver(receiver, segment, sequence);
+	    while (!receiver.outOfOrder.isEmpty() &&
+		   receiver.outOfOrder.firstKey() - receiver.rcvNxt <= 0) {
+		Map.Entry<Integer, byte[]> held = receiver.outOfOrder.pollFirstEntry();
+		deliver(receiver, held.getValue(), held.getKey());
+	    }
+	} else if (ahead + length <= MAX_WINDOW) {
+	    receiver.outOfOrder.putIfAbsent(sequence, segment);
+	}
+
+	sendAck(receiver, sequence);
+
+    } // receiveData ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Pass to the host whatever part of a segment lies at or beyond the next
+     * expected offset.
+     */
+    private void deliver (Receiver receiver, byte[] segment, int sequence) {
+
+	int skip = receiver.rcvNxt - sequence;
+	int end  = segment.length - DATA_HEADER_SIZE;
+	if (skip >= end) {
+	    duplicateSegments.increment();
+	    return;
+	}
+	byte[] data = new byte[end - skip];
+	System.arraycopy(segment, DATA_HEADER_SIZE + skip, data, 0, data.length);
+	receiver.rcvNxt += data.length;
+	host.deliver(receiver.source, receiver.remotePort, receiver.localPort, data);
+
+    } // deliver ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Acknowledge, reporting the held ranges beyond the next expected offset:
+     * the one containing the segment just received first, then the lowest.
+     *
+     * @param receiver The stream's receiving state.
+     * @param sequence The sequence number of the segment just received.
+     */
+    private void sendAck (Receiver receiver, int sequence) {
+
+	// Merge the held segments into ranges.
+	int[] starts = new int[MAX_SACK_BLOCKS];
+	int[] ends   = new int[MAX_SACK_BLOCKS];
+	int   blocks = 0;
+	int   start  = 0;
+	int   end    = 0;
+	boolean open = false;
+	for (Map.Entry<Integer, byte[]> held : receiver.outOfOrder.entrySet()) {
+	    int heldStart = held.getKey();
+	    int heldEnd   = heldStart + held.getValue().length - DATA_HEADER_SIZE;
+	    if (open && heldStart - end <= 0) {
+		end = Math.max(end, heldEnd);
+		continue;
+	    }
+	    if (open) {
+		blocks = addBlock(starts, ends, blocks, start, end, sequence);
+	    }
+	    start = heldStart;
+	    end   = heldEnd;
+	    open  = true;
+	}
+	if (open) {
+	    blocks = addBlock(starts, ends, blocks, start, end, sequence);
+	}
+
+	byte[] ack = new byte[ACK_HEADER_SIZE + blocks * SACK_BLOCK_SIZE];
+	ack[0] = ACK_TYPE;
+	NetworkLayer.writeInt(ack, 1, receiver.rcvNxt);
+	ack[ACK_HEADER_SIZE - 1] = (byte)blocks;
+	for (int b = 0; b < blocks; b += 1) {
+	    NetworkLayer.writeInt(ack, ACK_HEADER_SIZE + b * SACK_BLOCK_SIZE,     starts[b]);
+	    NetworkLayer.writeInt(ack, ACK_HEADER_SIZE + b * SACK_BLOCK_SIZE + 4, ends[b]);
+	}
+	networkLayer.send(AddressRegistry.hostname(receiver.source),
+			  receiver.localPort, receiver.remotePort,
+			  ack, NetworkLayer.CONTROL_CLASS);
+	acksSent.increment();
+
+    } // sendAck ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Add a range to the blocks to report, if there is room; a range holding
+     * the given sequence number goes first.
+     *
+     * @return the number of blocks now held.
+     */
+    private static int addBlock (int[] starts, int[] ends, int blocks,
+				 int start, int end, int sequence) {
+
+	boolean recent = (sequence - start >= 0 && sequence - end < 0);
+	if (recent) {
+	    int last = Math.min(blocks, starts.length - 1);
+	    System.arraycopy(starts, 0, starts, 1, last);
+	    System.arraycopy(ends,   0, ends,   1, last);
+	    starts[0] = start;
+	    ends[0]   = end;
+	    return last + 1;
+	}
+	if (blocks < starts.length) {
+	    starts[blocks] = start;
+	    ends[blocks]   = end;
+	    return blocks + 1;
+	}
+	return blocks;
+
+    } // addBlock ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Provide the largest segment that the network layer sends to a stream's
+     * destination as one packet, so that every packet begins with a segment
+     * header.
+     */
+    private int mss (Sender sender) {
+
+	return Math.max(1, networkLayer.maxPacketData(sender.destinationAddress) -
+			DATA_HEADER_SIZE);
+
+    } // mss ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A segment sent and not yet cumulatively acknowledged.
+     */
+    private static class Segment {
+
+	Segment (int sequence, int length, long sentTime) {
+	    this.sequence = sequence;
+	    this.length   = length;
+	    this.sentTime = sentTime;
+	}
+
+	int       sequence;
+	int       length;
+	long      sentTime;
+	boolean   sacked        = false;
+	boolean   lost          = false;
+	boolean   retransmitted = false;
+
+    } // class Segment
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The sending state of the stream of one flow.
+     */
+    private class Sender {
+
+	Sender (String destination, int localPort, int remotePort) {
+	    this.destination        = destination;
+	    this.destinationAddress = AddressRegistry.lookup(destination);
+	    this.localPort          = localPort;
+	    this.remotePort         = remotePort;
+	    this.buffer             = new ByteRing();
+	    this.outstanding        = new ArrayDeque<Segment>();
+	    this.cwnd               = INITIAL_WINDOW * mss(this);
+	    String flow = (host.getHostname() + ":" + localPort + "->" +
+			   destination + ":" + remotePort);
+	    this.bytesAcked  = Statistics.counter("transport." + flow + ".bytesAcked");
+	    this.goodput     = Statistics.counter("transport." + flow + ".goodputBytesPerSec");
+	}
+
+	/** The bytes sent and neither acknowledged nor taken as lost. */
+	int pipe () {
+	    return flight() - sackedBytes - lostBytes;
+	}
+
+	/** The bytes sent and not cumulatively acknowledged. */
+	int flight () {
+	    return sndNxt - sndUna;
+	}
+
+	/** Fold a round-trip time sample into the timeout, as RFC 6298. */
+	void updateRto (long sample) {
+	    if (srtt < 0) {
+		srtt   = sample;
+		rttvar = sample / 2;
+	    } else {
+		rttvar = (3 * rttvar + Math.abs(srtt - sample)) / 4;
+		srtt   = (7 * srtt + sample) / 8;
+	    }
+	    rto = Math.max(MIN_RTO, Math.min(MAX_RTO, srtt + 4 * rttvar));
+	}
+
+	final String             destination;
+	final int                destinationAddress;
+	final int                localPort;
+	final int                remotePort;
+	int                      trafficClass;
+
+	/** The bytes from the oldest unacknowledged onward. */
+	final ByteRing           buffer;
+
+	/** The oldest unacknowledged offset, and the next to send. */
+	int                      sndUna = 0;
+	int                      sndNxt = 0;
+
+	/** The segments in flight, in order. */
+	final ArrayDeque<Segment> outstanding;
+	int                      sackedBytes = 0;
+	int                      lostBytes   = 0;
+
+	/** The congestion window and slow start threshold, in bytes. */
+	int                      cwnd;
+	int                      ssthresh    = MAX_WINDOW;
+
+	/** Loss recovery: duplicate acknowledgements, and where recovery ends. */
+	int                      dupAcks       = 0;
+	boolean                  inRecovery    = false;
+	int                      recoveryPoint = 0;
+
+	/** Round-trip estimates and the retransmission timer, in ns. */
+	long                     srtt        = -1;
+	long                     rttvar      = 0;
+	long                     rto         = INITIAL_RTO;
+	long                     rtoDeadline = 0;
+
+	/** The bytes acknowledged, and the goodput since the first was sent. */
+	final LongAdder          bytesAcked;
+	final LongAdder          goodput;
+	long                     firstSendTime = 0;
+
+    } // class Sender
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * The receiving state of the stream of one flow.
+     */
+    private static class Receiver {
+
+	Receiver (int source, int remotePort, int localPort) {
+	    this.source     = source;
+	    this.remotePort = remotePort;
+	    this.localPort  = localPort;
+	}
+
+	/** The address of the sender, and the ports at each end. */
+	final int               source;
+	final int               remotePort;
+	final int               localPort;
+
+	/** The next offset expected. */
+	int                     rcvNxt     = 0;
+
+	/** Segments received ahead of that offset, by sequence number. */
+	TreeMap<Integer, byte[]> outOfOrder = new TreeMap<Integer, byte[]>();
+
+    } // class Receiver
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The host served, and its network layer. */
+    private final Host                   host;
+    private final NetworkLayer           networkLayer;
+
+    /** The streams of each flow, keyed by <code>Host.flowKey()</code>. */
+    private final Map<Long, Sender>      senders;
+    private final Map<Long, Receiver>    receivers;
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // CLASS DATA MEMBERS
+
+    /** Whether hosts use a transport layer. */
+    public static final boolean enabled = Boolean.getBoolean("transport");
+
+    /** The segment types. */
+    public static final byte DATA_TYPE = 1;
+    public static final byte ACK_TYPE  = 2;
+
+    /** The sizes of segment headers, and of each selective block. */
+    private static final int DATA_HEADER_SIZE = 1 + Integer.BYTES;
+    private static final int ACK_HEADER_SIZE  = 1 + Integer.BYTES + 1;
+    private static final int SACK_BLOCK_SIZE  = 2 * Integer.BYTES;
+
+    /** The most selective blocks in an acknowledgement. */
+    public static final int  MAX_SACK_BLOCKS  = 4;
+
+    /** The acknowledgements after which a segment is taken as lost. */
+    public static final int  DUPLICATE_THRESHOLD = 3;
+
+    /** The initial congestion window, in segments, and the largest, in bytes. */
+    public static final int  INITIAL_WINDOW = 4;
+    public static final int  MAX_WINDOW
+	= Integer.getInteger("transport.window", 65536);
+
+    /** Bounds on the retransmission timeout, and its initial value, in ns. */
+    public static final long MIN_RTO
+	= Long.getLong("transport.minRto", 100) * 1000000;
+    public static final long MAX_RTO     = 10000L * 1000000;
+    public static final long INITIAL_RTO = 1000L  * 1000000;
+
+    /** Counts of transport events across all hosts. */
+    private static final LongAdder segmentsSent
+	= Statistics.counter("transport.segmentsSent");
+    private static final LongAdder segmentsRetransmitted
+	= Statistics.counter("transport.segmentsRetransmitted");
+    private static final LongAdder fastRetransmits
+	= Statistics.counter("transport.fastRetransmits");
+    private static final LongAdder timeouts
+	= Statistics.counter("transport.timeouts");
+    private static final LongAdder acksSent
+	= Statistics.counter("transport.acksSent");
+    private static final LongAdder duplicateSegments
+	= Statistics.counter("transport.duplicateSegments");
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class TransportLayer
+// =============================================================================
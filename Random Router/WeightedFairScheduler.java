@@ -0,0 +1,110 @@
+// =============================================================================
+// IMPORTS
+
+import java.util.PriorityQueue;
+// =============================================================================
+
+
+
+// =============================================================================
+/**
+ * @file   WeightedFairScheduler.java
+ * @date   October 2026
+ *
+ * Weighted Fair Queueing: each packet is stamped on arrival with the virtual
+ * time at which it would finish were the link shared bit by bit among the
+ * busy classes in proportion to their weights, and packets are sent in order
+ * of those finish times.  The virtual time is that of the packet most recently
+ * sent (self-clocked fair queueing), which avoids simulating the bit-by-bit
+ * server.  Each operation takes time logarithmic in the number of packets
+ * queued.
+ */
+public class WeightedFairScheduler extends PacketScheduler {
+// =============================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Stamp a packet with its finish time and hold it.
+     *
+     * @param queued The packet.
+     */
+    protected void add (QueuedPacket queued) {
+
+	int    c      = queued.trafficClass;
+	double start  = Math.max(virtualTime, lastFinish[c]);
+	lastFinish[c] = start + (double)queued.packet.length / WEIGHTS[c];
+	queue.add(new Stamped(queued, lastFinish[c], sequence++));
+
+    } // add ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * Take the packet with the earliest finish time, advancing the virtual
+     * time to it.
+     *
+     * @return the packet.
+     */
+    protected QueuedPacket remove () {
+
+	Stamped stamped = queue.poll();
+	virtualTime     = stamped.finish;
+	return stamped.queued;
+
+    } // remove ()
+    // =========================================================================
+
+
+
+    // =========================================================================
+    /**
+     * A packet with its finish time.  Ties go to the packet that arrived
+     * first.
+     */
+    private static class Stamped implements Comparable<Stamped> {
+
+	Stamped (QueuedPacket queued, double finish, long sequence) {
+	    this.queued   = queued;
+	    this.finish   = finish;
+	    this.sequence = sequence;
+	}
+
+	public int compareTo (Stamped other) {
+	    int order = Double.compare(finish, other.finish);
+	    return (order != 0 ? order : Long.compare(sequence, other.sequence));
+	}
+
+	final QueuedPacket queued;
+	final double       finish;
+	final long         sequence;
+
+    } // class Stamped
+    // =========================================================================
+
+
+
+    // =========================================================================
+    // INSTANCE DATA MEMBERS
+
+    /** The packets, ordered by finish time. */
+    private final PriorityQueue<Stamped> queue = new PriorityQueue<Stamped>();
+
+    /** The finish time of the last packet stamped in each class. */
+    private final double[] lastFinish  = new double[NUM_CLASSES];
+
+    /** The finish time of the packet most recently sent. */
+    private double         virtualTime = 0;
+
+    /** The number of packets stamped, to order ties. */
+    private long           sequence    = 0;
+    // =========================================================================
+
+
+
+// =============================================================================
+} // class WeightedFairScheduler
+// =============================================================================